@@ -9,6 +9,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Profile;
 
 import java.util.Random;
 
@@ -18,6 +19,7 @@ public class Main {
         SpringApplication.run(Main.class, args);
     }
     @Bean
+    @Profile("!reactive")
     CommandLineRunner runner(CustomerRepository customerRepository){
         return args -> {
             var faker = new Faker();
@@ -0,0 +1,161 @@
+package com.springapp.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lets at most {@code permits} callers hold a connection at the same time and
+ * makes everyone else wait in a fair queue in front of the pool. With a thread
+ * per request that limit came from the request thread pool; with virtual
+ * threads thousands of requests can reach the pool at once, and this is where
+ * they line up. The time spent waiting is recorded as
+ * {@code datasource.connection.permit.wait}, tagged with the outcome.
+ * <p>
+ * It replaces the pool's bean, so closing it closes the pool it wraps.
+ */
+public class ConnectionPermitDataSource extends DelegatingDataSource implements AutoCloseable {
+    private final Semaphore permits;
+    private final int maxPermits;
+    private final long timeoutNanos;
+    private final CompositeMeterRegistry meterRegistry = new CompositeMeterRegistry();
+    private final Timer acquired;
+    private final Timer timedOut;
+
+    public ConnectionPermitDataSource(DataSource targetDataSource,
+                                      String name,
+                                      int maxPermits,
+                                      Duration timeout) {
+        super(targetDataSource);
+        this.permits = new Semaphore(maxPermits, true);
+        this.maxPermits = maxPermits;
+        this.timeoutNanos = timeout.toNanos();
+        this.acquired = waitTimer(name, "acquired");
+        this.timedOut = waitTimer(name, "timeout");
+        Gauge.builder("datasource.connection.permit.waiting", permits, Semaphore::getQueueLength)
+                .description("Callers waiting for a connection permit")
+                .tag("pool", name)
+                .register(meterRegistry);
+        Gauge.builder("datasource.connection.permit.available", permits, Semaphore::availablePermits)
+                .description("Connection permits not currently held")
+                .tag("pool", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publishes the wait metrics to {@code registry}. The meters exist from the
+     * start, so nothing recorded before the registry is bound is lost.
+     */
+    public void bindTo(MeterRegistry registry) {
+        meterRegistry.add(registry);
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquirePermit();
+        try {
+            return releasingPermitOnClose(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquirePermit();
+        try {
+            return releasingPermitOnClose(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the wrapped pool, if it can be closed.
+     */
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable target) {
+            target.close();
+        }
+    }
+
+    private Timer waitTimer(String name, String outcome) {
+        return Timer.builder("datasource.connection.permit.wait")
+                .description("Time spent waiting for a connection permit")
+                .tag("pool", name)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    private void acquirePermit() throws SQLException {
+        long start = System.nanoTime();
+        boolean granted;
+        try {
+            granted = permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("interrupted while waiting for a connection permit", e);
+        }
+        long waited = System.nanoTime() - start;
+        if (!granted) {
+            timedOut.record(waited, TimeUnit.NANOSECONDS);
+            throw new SQLTransientConnectionException(
+                    "timed out after %d ms waiting for one of %d connection permits"
+                            .formatted(TimeUnit.NANOSECONDS.toMillis(waited), maxPermits));
+        }
+        acquired.record(waited, TimeUnit.NANOSECONDS);
+    }
+
+    private Connection releasingPermitOnClose(Connection target) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionProxy.class.getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "getTargetConnection" -> target;
+                    case "close" -> {
+                        try {
+                            yield invoke(target, method, args);
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                        }
+                    }
+                    default -> invoke(target, method, args);
+                });
+    }
+
+    private static Object invoke(Connection target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
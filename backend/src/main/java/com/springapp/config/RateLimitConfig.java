@@ -0,0 +1,47 @@
+package com.springapp.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.Map;
+
+/**
+ * Limits each client of the customer API to its own token bucket per route
+ * when {@code rate-limit.enabled} is set: listing and searching, reading one
+ * customer, and writes each have a capacity, which is the burst a client may
+ * send at once, and a sustained rate.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "rate-limit.enabled", havingValue = "true")
+public class RateLimitConfig {
+
+    @Value("${rate-limit.maximum-clients:100000}")
+    private long maximumClients;
+
+    @Bean
+    public RateLimitInterceptor rateLimitInterceptor(
+            MeterRegistry meterRegistry,
+            @Value("${rate-limit.api-key-header:X-API-Key}") String apiKeyHeader,
+            @Value("${rate-limit.list.capacity:20}") long listCapacity,
+            @Value("${rate-limit.list.refill-per-second:10}") double listRefillPerSecond,
+            @Value("${rate-limit.by-id.capacity:200}") long byIdCapacity,
+            @Value("${rate-limit.by-id.refill-per-second:100}") double byIdRefillPerSecond,
+            @Value("${rate-limit.writes.capacity:20}") long writesCapacity,
+            @Value("${rate-limit.writes.refill-per-second:10}") double writesRefillPerSecond) {
+        return new RateLimitInterceptor(
+                Map.of(
+                        RateLimitInterceptor.Route.LIST,
+                        new TokenBucketRateLimiter(listCapacity, listRefillPerSecond, maximumClients),
+                        RateLimitInterceptor.Route.BY_ID,
+                        new TokenBucketRateLimiter(byIdCapacity, byIdRefillPerSecond, maximumClients),
+                        RateLimitInterceptor.Route.WRITES,
+                        new TokenBucketRateLimiter(writesCapacity, writesRefillPerSecond, maximumClients)),
+                apiKeyHeader,
+                meterRegistry);
+    }
+}
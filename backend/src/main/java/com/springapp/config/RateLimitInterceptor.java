@@ -0,0 +1,94 @@
+package com.springapp.config;
+
+import com.springapp.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits API requests per client and per route with a
+ * {@link TokenBucketRateLimiter} each. A client is the value of the API key
+ * header when the request has one, its remote address otherwise. The key is
+ * not verified here, so it only separates clients that send it honestly.
+ * A request without a token is rejected with a 429 and a
+ * {@code Retry-After} of the seconds until the next token.
+ * <p>
+ * Rejections are counted as {@code rate.limit.rejected} and the number of
+ * tracked clients is published as {@code rate.limit.clients}, both tagged
+ * with the route.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+    public enum Route {
+        LIST,
+        BY_ID,
+        WRITES
+    }
+
+    private final Map<Route, TokenBucketRateLimiter> limiters;
+    private final Map<Route, Counter> rejected = new EnumMap<>(Route.class);
+    private final String apiKeyHeader;
+
+    public RateLimitInterceptor(Map<Route, TokenBucketRateLimiter> limiters,
+                                String apiKeyHeader,
+                                MeterRegistry meterRegistry) {
+        this.limiters = new EnumMap<>(limiters);
+        this.apiKeyHeader = apiKeyHeader;
+        this.limiters.forEach((route, limiter) -> {
+            String tag = route.name().toLowerCase();
+            rejected.put(route, Counter.builder("rate.limit.rejected")
+                    .tag("route", tag)
+                    .register(meterRegistry));
+            Gauge.builder("rate.limit.clients", limiter, TokenBucketRateLimiter::clients)
+                    .tag("route", tag)
+                    .register(meterRegistry);
+        });
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if(CorsUtils.isPreFlightRequest(request)){
+            return true;
+        }
+        Route route = route(request);
+        long waitNanos = limiters.get(route).tryAcquire(client(request, apiKeyHeader));
+        if(waitNanos == 0){
+            return true;
+        }
+        rejected.get(route).increment();
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        throw new TooManyRequestsException("rate limit exceeded, retry after %d seconds".formatted(retryAfterSeconds));
+    }
+
+    /**
+     * Writes by method; reads by whether the matched pattern ends in a path
+     * variable, which singles out one resource, or lists a collection.
+     */
+    static Route route(HttpServletRequest request) {
+        String method = request.getMethod();
+        if(!method.equals("GET") && !method.equals("HEAD")){
+            return Route.WRITES;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null && pattern.toString().endsWith("}") ? Route.BY_ID : Route.LIST;
+    }
+
+    /**
+     * The client a request comes from: its API key when it sends one, its
+     * remote address otherwise.
+     */
+    public static String client(HttpServletRequest request, String apiKeyHeader) {
+        String apiKey = request.getHeader(apiKeyHeader);
+        return apiKey != null && !apiKey.isBlank() ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+    }
+}
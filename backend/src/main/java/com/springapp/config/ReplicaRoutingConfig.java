@@ -0,0 +1,118 @@
+package com.springapp.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Replaces the single data source with a {@link ReplicaRoutingDataSource} when
+ * {@code datasource.replicas.enabled} is set. The primary keeps
+ * {@code spring.datasource}; each replica gets its own Hikari pool with the
+ * same credentials and {@code spring.datasource.hikari} settings, named
+ * {@code replica-1}, {@code replica-2} and so on in the pool metrics. API
+ * requests run in a session of their client, see {@link ReplicaSessionFilter}.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "datasource.replicas.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+    private final CompositeMeterRegistry poolMetrics = new CompositeMeterRegistry();
+
+    @Bean
+    public ReplicaRoutingDataSource dataSource(
+            DataSourceProperties properties,
+            Environment environment,
+            @Value("#{'${datasource.replicas.urls:}'.split(',')}") List<String> urls,
+            @Value("${datasource.replicas.balance:round-robin}") String balance,
+            @Value("${datasource.replicas.read-your-writes-window:1s}") Duration readYourWritesWindow,
+            @Value("${datasource.replicas.maximum-clients:100000}") long maximumClients,
+            @Value("${threads.virtual.enabled:false}") boolean virtualThreads) {
+        Binder binder = Binder.get(environment);
+        ReplicaRoutingDataSource.Pool primary =
+                pool(properties, binder, "primary", properties.determineUrl(), virtualThreads);
+        List<ReplicaRoutingDataSource.Pool> replicas = new ArrayList<>();
+        for (String url : urls) {
+            if (!url.isBlank()) {
+                replicas.add(pool(properties, binder, "replica-" + (replicas.size() + 1), url.trim(), virtualThreads));
+            }
+        }
+        return new ReplicaRoutingDataSource(
+                primary,
+                replicas,
+                ReplicaRoutingDataSource.Balance.valueOf(balance.trim().toUpperCase().replace('-', '_')),
+                readYourWritesWindow,
+                maximumClients);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReplicaSessionFilter> replicaSessionFilter(
+            ReplicaRoutingDataSource dataSource,
+            @Value("${rate-limit.api-key-header:X-API-Key}") String apiKeyHeader) {
+        FilterRegistrationBean<ReplicaSessionFilter> registration =
+                new FilterRegistrationBean<>(new ReplicaSessionFilter(dataSource, apiKeyHeader));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    /**
+     * Publishes the routing metrics and, per pool, the Hikari metrics and the
+     * connection permit metrics when virtual threads are on.
+     */
+    @Bean
+    public MeterBinder replicaRoutingMetrics(ReplicaRoutingDataSource dataSource) {
+        return registry -> {
+            dataSource.bindTo(registry);
+            poolMetrics.add(registry);
+            Stream.concat(Stream.of(dataSource.primary()), dataSource.replicas().stream())
+                    .map(ReplicaRoutingDataSource.Pool::dataSource)
+                    .forEach(pool -> {
+                        try {
+                            if (pool.isWrapperFor(ConnectionPermitDataSource.class)) {
+                                pool.unwrap(ConnectionPermitDataSource.class).bindTo(registry);
+                            }
+                        } catch (SQLException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    });
+        };
+    }
+
+    private ReplicaRoutingDataSource.Pool pool(DataSourceProperties properties,
+                                               Binder binder,
+                                               String name,
+                                               String url,
+                                               boolean virtualThreads) {
+        HikariDataSource hikari = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(hikari));
+        hikari.setPoolName(name);
+        hikari.setMetricRegistry(poolMetrics);
+        // fills in the defaults, such as the pool size the permits are sized to
+        hikari.validate();
+        DataSource dataSource = hikari;
+        if (virtualThreads) {
+            dataSource = new ConnectionPermitDataSource(
+                    hikari, name, hikari.getMaximumPoolSize(), Duration.ofMillis(hikari.getConnectionTimeout()));
+        }
+        return new ReplicaRoutingDataSource.Pool(name, dataSource);
+    }
+}
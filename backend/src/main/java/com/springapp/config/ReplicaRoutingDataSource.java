@@ -0,0 +1,340 @@
+package com.springapp.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hands out connections to the primary, or to one of the replicas for work
+ * run inside {@link #read}. Replicas are picked round-robin or by the fewest
+ * connections this node has open on them.
+ * <p>
+ * A client request runs in a {@link #session}: every read in it goes to the
+ * pool its first read went to, so reads that must agree with each other, such
+ * as a revision and the page it tags, never straddle two replicas that have
+ * replayed different amounts. Work run inside {@link #write} marks a write for
+ * the client of the session, once committed, and for
+ * {@code readYourWritesWindow} after that the reads of that client go to the
+ * primary, so it does not read what it has just written from a replica that
+ * has not replayed it yet. Other connections to the primary, such as health
+ * checks and background jobs, mark nothing. A read inside a transaction that
+ * is not read-only also stays on the primary, and a replica that fails to
+ * hand out a connection is skipped in favour of the primary.
+ * <p>
+ * Connections are counted per pool and route as
+ * {@code datasource.routing.connections}, and the ones currently open as
+ * {@code datasource.routing.active}.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final ThreadLocal<Boolean> READ = new ThreadLocal<>();
+    private static final ThreadLocal<Session> SESSION = new ThreadLocal<>();
+
+    public enum Balance {
+        ROUND_ROBIN, LEAST_CONNECTIONS
+    }
+
+    public record Pool(String name, DataSource dataSource) {
+    }
+
+    private final Target primary;
+    private final List<Target> replicas;
+    private final Balance balance;
+    private final long windowNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private final CompositeMeterRegistry meterRegistry = new CompositeMeterRegistry();
+    private final Cache<String, Long> lastWrites;
+
+    public ReplicaRoutingDataSource(Pool primary,
+                                    List<Pool> replicas,
+                                    Balance balance,
+                                    Duration readYourWritesWindow,
+                                    long maximumClients) {
+        this.primary = new Target(primary, "write", "unreplicated", "read_your_writes", "fallback");
+        this.replicas = replicas.stream().map(pool -> new Target(pool, "read")).toList();
+        this.balance = balance;
+        this.windowNanos = readYourWritesWindow.toNanos();
+        this.lastWrites = Caffeine.newBuilder()
+                .maximumSize(maximumClients)
+                .expireAfterWrite(readYourWritesWindow)
+                .build();
+    }
+
+    /**
+     * Opens the session of a request by {@code client} on this thread, to be
+     * closed when the request is done. Nested sessions keep the outer one.
+     */
+    public Session session(String client) {
+        if (SESSION.get() != null) {
+            return () -> {
+            };
+        }
+        RequestSession session = new RequestSession(client);
+        SESSION.set(session);
+        return session;
+    }
+
+    /**
+     * Runs {@code work} with its connections taken from a replica where the
+     * rules above allow it. Nested calls keep the outer scope.
+     */
+    public static <T> T read(Supplier<T> work) {
+        Boolean previous = READ.get();
+        READ.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                READ.remove();
+            }
+        }
+    }
+
+    /**
+     * Runs {@code work}, which writes, and marks the write for the client of
+     * the current session once its transaction, if any, has committed.
+     */
+    public static <T> T write(Supplier<T> work) {
+        T result = work.get();
+        if (SESSION.get() instanceof RequestSession session) {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        session.wrote();
+                    }
+                });
+            } else {
+                session.wrote();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Publishes the routing metrics to {@code registry}. The meters exist from
+     * the start, so nothing recorded before the registry is bound is lost.
+     */
+    public void bindTo(MeterRegistry registry) {
+        meterRegistry.add(registry);
+    }
+
+    public Pool primary() {
+        return primary.pool;
+    }
+
+    public List<Pool> replicas() {
+        return replicas.stream().map(target -> target.pool).toList();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Target target : replicas) {
+            close(target.pool);
+        }
+        close(primary.pool);
+    }
+
+    private Connection connect(ConnectionSource source) throws SQLException {
+        if (!isRead()) {
+            return primary.open(source, "write");
+        }
+        if (replicas.isEmpty()) {
+            return primary.open(source, "unreplicated");
+        }
+        RequestSession session = SESSION.get() instanceof RequestSession current && current.owner() == this
+                ? current
+                : null;
+        if (session != null && session.wroteRecently()) {
+            return primary.open(source, "read_your_writes");
+        }
+        if (session != null && session.pinned != null) {
+            return open(session, session.pinned, session.pinnedRoute, source);
+        }
+        return open(session, choose(), "read", source);
+    }
+
+    private Connection open(RequestSession session, Target target, String route, ConnectionSource source)
+            throws SQLException {
+        Connection connection;
+        try {
+            connection = target.open(source, route);
+        } catch (SQLException e) {
+            if (target == primary) {
+                throw e;
+            }
+            LOGGER.warn("replica {} unavailable, reading from the primary: {}", target.pool.name(), e.getMessage());
+            target = primary;
+            route = "fallback";
+            connection = primary.open(source, route);
+        }
+        if (session != null) {
+            session.pinned = target;
+            session.pinnedRoute = route;
+        }
+        return connection;
+    }
+
+    private static boolean isRead() {
+        if (READ.get() == null) {
+            return false;
+        }
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private Target choose() {
+        if (balance == Balance.ROUND_ROBIN) {
+            return replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+        }
+        Target least = replicas.get(0);
+        for (Target replica : replicas) {
+            if (replica.active.get() < least.active.get()) {
+                least = replica;
+            }
+        }
+        return least;
+    }
+
+    private static void close(Pool pool) throws IOException {
+        try {
+            if (pool.dataSource().isWrapperFor(Closeable.class)) {
+                pool.dataSource().unwrap(Closeable.class).close();
+            }
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * The session of one client request, see {@link #session}.
+     */
+    public interface Session extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final class RequestSession implements Session {
+        private final String client;
+        private Target pinned;
+        private String pinnedRoute;
+
+        private RequestSession(String client) {
+            this.client = client;
+        }
+
+        private ReplicaRoutingDataSource owner() {
+            return ReplicaRoutingDataSource.this;
+        }
+
+        private boolean wroteRecently() {
+            Long lastWrite = lastWrites.getIfPresent(client);
+            return lastWrite != null && System.nanoTime() - lastWrite < windowNanos;
+        }
+
+        private void wrote() {
+            lastWrites.put(client, System.nanoTime());
+            // what this request reads next has to include the write
+            pinned = null;
+        }
+
+        @Override
+        public void close() {
+            SESSION.remove();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection get(DataSource dataSource) throws SQLException;
+    }
+
+    private final class Target {
+        private final Pool pool;
+        private final AtomicInteger active = new AtomicInteger();
+        private final Map<String, Counter> connections = new HashMap<>();
+
+        private Target(Pool pool, String... routes) {
+            this.pool = pool;
+            for (String route : routes) {
+                connections.put(route, Counter.builder("datasource.routing.connections")
+                        .description("Connections handed out, by pool and the reason it was chosen")
+                        .tag("pool", pool.name())
+                        .tag("route", route)
+                        .register(meterRegistry));
+            }
+            Gauge.builder("datasource.routing.active", active, AtomicInteger::get)
+                    .description("Connections currently open through the routing data source")
+                    .tag("pool", pool.name())
+                    .register(meterRegistry);
+        }
+
+        private Connection open(ConnectionSource source, String route) throws SQLException {
+            Connection target = source.get(pool.dataSource());
+            active.incrementAndGet();
+            connections.get(route).increment();
+            AtomicBoolean closed = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionProxy.class.getClassLoader(),
+                    new Class<?>[]{ConnectionProxy.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "equals" -> proxy == args[0];
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "getTargetConnection" -> target;
+                        case "close" -> {
+                            try {
+                                yield invoke(target, method, args);
+                            } finally {
+                                if (closed.compareAndSet(false, true)) {
+                                    active.decrementAndGet();
+                                }
+                            }
+                        }
+                        default -> invoke(target, method, args);
+                    });
+        }
+    }
+
+    private static Object invoke(Connection target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
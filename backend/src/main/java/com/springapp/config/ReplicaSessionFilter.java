@@ -0,0 +1,34 @@
+package com.springapp.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Runs each request in a {@link ReplicaRoutingDataSource#session} of its
+ * client, keyed like {@link RateLimitInterceptor} keys clients, so the reads
+ * of a request come from one pool and the client reads its own writes.
+ */
+public class ReplicaSessionFilter extends OncePerRequestFilter {
+    private final ReplicaRoutingDataSource dataSource;
+    private final String apiKeyHeader;
+
+    public ReplicaSessionFilter(ReplicaRoutingDataSource dataSource, String apiKeyHeader) {
+        this.dataSource = dataSource;
+        this.apiKeyHeader = apiKeyHeader;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        try (ReplicaRoutingDataSource.Session session =
+                     dataSource.session(RateLimitInterceptor.client(request, apiKeyHeader))) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
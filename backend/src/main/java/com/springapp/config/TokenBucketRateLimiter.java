@@ -0,0 +1,73 @@
+package com.springapp.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket per client, holding up to {@code capacity} tokens and
+ * refilled at {@code refillPerSecond}. Each bucket is a single
+ * {@link AtomicLong} with the time at which it will be full again, so taking a
+ * token is one compare-and-set and a refill needs no timer. Buckets are
+ * created on a client's first request and evicted once idle long enough to be
+ * full, when dropping one changes nothing; at most {@code maximumClients} are
+ * kept, and a client evicted by that bound comes back with a full bucket.
+ */
+public class TokenBucketRateLimiter {
+    private final long nanosPerToken;
+    private final long capacityNanos;
+    private final Ticker ticker;
+    private final Cache<String, AtomicLong> buckets;
+
+    public TokenBucketRateLimiter(long capacity, double refillPerSecond, long maximumClients) {
+        this(capacity, refillPerSecond, maximumClients, Ticker.systemTicker());
+    }
+
+    TokenBucketRateLimiter(long capacity, double refillPerSecond, long maximumClients, Ticker ticker) {
+        this.nanosPerToken = Math.max(1, Math.round(1e9 / refillPerSecond));
+        this.capacityNanos = capacity * nanosPerToken;
+        this.ticker = ticker;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumClients)
+                .expireAfterAccess(Duration.ofNanos(capacityNanos))
+                .ticker(ticker)
+                // the cache's upkeep is a few pointer moves, cheaper than handing it to another thread
+                .executor(Runnable::run)
+                .build();
+    }
+
+    /**
+     * Takes a token from the client's bucket.
+     *
+     * @return 0 when a token was taken, otherwise the nanoseconds until the
+     * next one is available
+     */
+    public long tryAcquire(String client) {
+        long now = ticker.read();
+        AtomicLong fullAt = buckets.getIfPresent(client);
+        if(fullAt == null){
+            // looked up first, so only a new client pays for the capturing lambda
+            fullAt = buckets.get(client, key -> new AtomicLong(now));
+        }
+        while(true){
+            long current = fullAt.get();
+            long next = (current - now > 0 ? current : now) + nanosPerToken;
+            long wait = next - now - capacityNanos;
+            if(wait > 0){
+                return wait;
+            }
+            if(fullAt.compareAndSet(current, next)){
+                return 0;
+            }
+        }
+    }
+
+    public long clients() {
+        // expired buckets are only dropped by the cache's maintenance
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+}
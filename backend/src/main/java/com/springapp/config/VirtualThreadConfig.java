@@ -0,0 +1,77 @@
+package com.springapp.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs request handling, and the async work behind streaming responses, on
+ * virtual threads when {@code threads.virtual.enabled} is set. The request
+ * thread pool no longer limits how many requests reach the connection pool, so
+ * the pool is put behind a {@link ConnectionPermitDataSource} sized to it.
+ */
+@Configuration
+@ConditionalOnProperty(name = "threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-vt-", 0).factory()));
+    }
+
+    @Bean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("task-vt-", 0).factory()));
+    }
+
+    /**
+     * Wraps the Hikari pool once its properties are bound, giving it as many
+     * permits as it has connections and the pool's own connection timeout.
+     */
+    @Bean
+    public static BeanPostProcessor connectionPermitDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    // the pool is not started yet, so unset sizes still read -1 until validated
+                    hikari.validate();
+                    return new ConnectionPermitDataSource(
+                            hikari,
+                            hikari.getPoolName() != null ? hikari.getPoolName() : beanName,
+                            hikari.getMaximumPoolSize(),
+                            Duration.ofMillis(hikari.getConnectionTimeout()));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder connectionPermitMetrics(ObjectProvider<DataSource> dataSources) {
+        return registry -> dataSources.orderedStream().forEach(dataSource -> {
+            try {
+                if (dataSource.isWrapperFor(ConnectionPermitDataSource.class)) {
+                    dataSource.unwrap(ConnectionPermitDataSource.class).bindTo(registry);
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,83 @@
+package com.springapp.customer;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Evicts written customers from Hibernate's second-level cache once the
+ * wrapped implementation has written them, so the JPA DAO never serves a row
+ * that another path changed. Reads pass straight through.
+ */
+public class CacheEvictingCustomerDao implements CustomerDao {
+    private final CustomerDao delegate;
+    private final CustomerSecondLevelCache cache;
+
+    public CacheEvictingCustomerDao(CustomerDao delegate, CustomerSecondLevelCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return delegate.selectAllCustomers();
+    }
+
+    @Override
+    public List<Customer> selectCustomersAfter(long afterId, int limit) {
+        return delegate.selectCustomersAfter(afterId, limit);
+    }
+
+    @Override
+    public List<Customer> searchCustomers(CustomerSearch search, long afterId, int limit) {
+        return delegate.searchCustomers(search, afterId, limit);
+    }
+
+    @Override
+    public List<Customer> searchCustomersByName(String query, int offset, int limit) {
+        return delegate.searchCustomersByName(query, offset, limit);
+    }
+
+    @Override
+    public void streamAllCustomers(Consumer<Customer> consumer) {
+        delegate.streamAllCustomers(consumer);
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long id) {
+        return delegate.selectCustomerById(id);
+    }
+
+    @Override
+    public Optional<Long> selectCustomerVersion(Long id) {
+        return delegate.selectCustomerVersion(id);
+    }
+
+    @Override
+    public long selectCustomersRevision() {
+        return delegate.selectCustomersRevision();
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        // a new row replaces nothing that is cached
+        delegate.insertCustomer(customer);
+    }
+
+    @Override
+    public List<Boolean> insertCustomers(List<Customer> customers) {
+        return delegate.insertCustomers(customers);
+    }
+
+    @Override
+    public void deleteCustomerById(Long id) {
+        delegate.deleteCustomerById(id);
+        cache.evict(id);
+    }
+
+    @Override
+    public void updateCustomer(Customer update) {
+        delegate.updateCustomer(update);
+        cache.evict(update.getId());
+    }
+}
@@ -0,0 +1,123 @@
+package com.springapp.customer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Read-through cache in front of another {@link CustomerDao} for lookups by id.
+ * The cache is bounded by size (W-TinyLFU eviction) and time to live; writes
+ * go to the delegate first and then drop the affected entry. Only existing
+ * customers are cached, so a later insert can never be hidden by a cached miss,
+ * and callers get copies so they cannot change what the cache holds.
+ */
+public class CachingCustomerDao implements CustomerDao {
+    private final CustomerDao delegate;
+    private final Cache<Long, Customer> cache;
+
+    public CachingCustomerDao(CustomerDao delegate, long maximumSize, Duration expireAfterWrite) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    public CachingCustomerDao(CustomerDao delegate, long maximumSize, Duration expireAfterWrite,
+                              MeterRegistry meterRegistry) {
+        this(delegate, maximumSize, expireAfterWrite);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "customers");
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return delegate.selectAllCustomers();
+    }
+
+    @Override
+    public List<Customer> selectCustomersAfter(long afterId, int limit) {
+        return delegate.selectCustomersAfter(afterId, limit);
+    }
+
+    @Override
+    public List<Customer> searchCustomers(CustomerSearch search, long afterId, int limit) {
+        return delegate.searchCustomers(search, afterId, limit);
+    }
+
+    @Override
+    public List<Customer> searchCustomersByName(String query, int offset, int limit) {
+        return delegate.searchCustomersByName(query, offset, limit);
+    }
+
+    @Override
+    public void streamAllCustomers(Consumer<Customer> consumer) {
+        delegate.streamAllCustomers(consumer);
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long id) {
+        // loads are atomic per key, an invalidation racing a load waits for it
+        // and then removes the value it produced
+        Customer cached = cache.get(id, key -> delegate.selectCustomerById(key).orElse(null));
+        return Optional.ofNullable(cached).map(Customer::new);
+    }
+
+    @Override
+    public Optional<Long> selectCustomerVersion(Long id) {
+        Customer cached = cache.getIfPresent(id);
+        return cached != null ? Optional.of(cached.getVersion()) : delegate.selectCustomerVersion(id);
+    }
+
+    @Override
+    public long selectCustomersRevision() {
+        return delegate.selectCustomersRevision();
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        delegate.insertCustomer(customer);
+        invalidate(customer.getId());
+    }
+
+    @Override
+    public List<Boolean> insertCustomers(List<Customer> customers) {
+        List<Boolean> results = delegate.insertCustomers(customers);
+        customers.forEach(c -> invalidate(c.getId()));
+        return results;
+    }
+
+    @Override
+    public void deleteCustomerById(Long id) {
+        try {
+            delegate.deleteCustomerById(id);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public void updateCustomer(Customer update) {
+        try {
+            delegate.updateCustomer(update);
+        } finally {
+            invalidate(update.getId());
+        }
+    }
+
+    Cache<Long, Customer> cache() {
+        return cache;
+    }
+
+    private void invalidate(Long id) {
+        if(id != null){
+            cache.invalidate(id);
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package com.springapp.customer;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.Objects;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CustomerSecondLevelCache.REGION)
 @Table(
         name = "customer",
         uniqueConstraints = {
@@ -19,7 +23,7 @@ public class Customer {
     @SequenceGenerator(
             name = "customer_id_seq",
             sequenceName = "customer_id_seq",
-            allocationSize = 1
+            allocationSize = 50
     )
     @GeneratedValue(
             strategy = GenerationType.SEQUENCE,
@@ -46,6 +50,11 @@ public class Customer {
     )
     @Enumerated(EnumType.STRING)
     private Gender gender;
+    @Version
+    @Column(
+            nullable = false
+    )
+    private Long version;
 
     public Customer() {
     }
@@ -65,6 +74,11 @@ public class Customer {
         this.gender = gender;
     }
 
+    public Customer(Customer customer) {
+        this(customer.id, customer.name, customer.email, customer.age, customer.gender);
+        this.version = customer.version;
+    }
+
     public Long getId() {
         return id;
     }
@@ -105,6 +119,14 @@ public class Customer {
         this.gender = gender;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Customer{" +
@@ -113,6 +135,7 @@ public class Customer {
                 ", email='" + email + '\'' +
                 ", age=" + age +
                 ", gender=" + gender +
+                ", version=" + version +
                 '}';
     }
 
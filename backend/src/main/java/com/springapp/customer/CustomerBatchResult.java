@@ -0,0 +1,13 @@
+package com.springapp.customer;
+
+public record CustomerBatchResult(
+        int index,
+        String email,
+        Status status
+){
+    public enum Status {
+        CREATED,
+        DUPLICATE_EMAIL,
+        INVALID
+    }
+}
@@ -0,0 +1,62 @@
+package com.springapp.customer;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import javax.cache.CacheManager;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reports, for the second-level cache region of {@link Customer}, what
+ * Hibernate's statistics count (hits, misses, puts and the hit ratio) next to
+ * what only the Caffeine cache underneath knows: how many entries it holds and
+ * how many it evicted.
+ * Exposed as {@code /actuator/hibernatecache}.
+ */
+@Endpoint(id = "hibernatecache")
+public class CustomerCacheStatisticsEndpoint {
+    private final Statistics statistics;
+    private final CacheManager cacheManager;
+
+    public CustomerCacheStatisticsEndpoint(EntityManagerFactory entityManagerFactory, CacheManager cacheManager) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.cacheManager = cacheManager;
+    }
+
+    @ReadOperation
+    public Map<String, RegionStatistics> regions() {
+        Map<String, RegionStatistics> regions = new LinkedHashMap<>();
+        regions.put(CustomerSecondLevelCache.REGION, region(
+                CustomerSecondLevelCache.REGION,
+                statistics.getDomainDataRegionStatistics(CustomerSecondLevelCache.REGION)));
+        return regions;
+    }
+
+    private RegionStatistics region(String name, CacheRegionStatistics region) {
+        // Hibernate only creates the statistics of a region on its first use
+        return region == null
+                ? region(name, 0, 0, 0)
+                : region(name, region.getHitCount(), region.getMissCount(), region.getPutCount());
+    }
+
+    private RegionStatistics region(String name, long hits, long misses, long puts) {
+        com.github.benmanes.caffeine.cache.Cache<?, ?> cache =
+                cacheManager.getCache(name).unwrap(com.github.benmanes.caffeine.cache.Cache.class);
+        long lookups = hits + misses;
+        return new RegionStatistics(
+                hits,
+                misses,
+                puts,
+                lookups == 0 ? 0 : (double) hits / lookups,
+                cache.stats().evictionCount(),
+                cache.estimatedSize());
+    }
+
+    public record RegionStatistics(long hits, long misses, long puts, double hitRatio, long evictions, long size) {
+    }
+}
@@ -1,31 +1,201 @@
 package com.springapp.customer;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.springapp.exception.ResourceNotFoundException;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("api/v1/customers")
 public class CustomerController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    /**
+     * Tag suffix of each representation, in the order the message converters
+     * are registered, so that the first match is the one that gets written.
+     */
+    private static final Map<MediaType, String> ETAG_SUFFIXES = new LinkedHashMap<>();
+    static {
+        ETAG_SUFFIXES.put(MediaType.APPLICATION_JSON, "");
+        ETAG_SUFFIXES.put(MediaType.APPLICATION_CBOR, "-cbor");
+        ETAG_SUFFIXES.put(new MediaType("application", "x-jackson-smile"), "-smile");
+        ETAG_SUFFIXES.put(CustomerProtobufHttpMessageConverter.PROTOBUF, "-pb");
+    }
     private final CustomerService customerService;
+    private final CustomerImportService customerImportService;
+    private final ObjectMapper objectMapper;
+    private final Optional<CustomerRegistrationQueue> registrationQueue;
+    private final ObjectProvider<ContentNegotiationManager> contentNegotiationManager;
 
-    public CustomerController(CustomerService customerService) {
+    public CustomerController(CustomerService customerService,
+                              CustomerImportService customerImportService,
+                              ObjectMapper objectMapper,
+                              Optional<CustomerRegistrationQueue> registrationQueue,
+                              ObjectProvider<ContentNegotiationManager> contentNegotiationManager) {
         this.customerService = customerService;
+        this.customerImportService = customerImportService;
+        this.objectMapper = objectMapper;
+        this.registrationQueue = registrationQueue;
+        this.contentNegotiationManager = contentNegotiationManager;
     }
 
     @GetMapping
-    public List<Customer> getCustomers(){
-        return customerService.getAllCustomers();
+    public ResponseEntity<List<Customer>> getCustomers(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            NativeWebRequest request
+    ) throws HttpMediaTypeNotAcceptableException {
+        // a matching tag must not turn a bad request into a 304
+        CustomerService.checkPageLimit(limit);
+        String suffix = etagSuffix(request);
+        // the marker is read before the page and from the same database, even
+        // with replicas, so a write landing in between can only leave the tag
+        // older than the body, never newer
+        if(request.checkNotModified("\"r%d%s\"".formatted(customerService.getCustomersRevision(), suffix))){
+            return null;
+        }
+        return pageResponse(customerService.getCustomers(after, limit));
     }
 
-    @GetMapping("{customerId}")
-    public Customer getCustomerById(@PathVariable("customerId") Long customerId){
+    @GetMapping("search")
+    public ResponseEntity<List<Customer>> searchCustomers(
+            @RequestParam(value = "minAge", required = false) Integer minAge,
+            @RequestParam(value = "maxAge", required = false) Integer maxAge,
+            @RequestParam(value = "gender", required = false) Gender gender,
+            @RequestParam(value = "name", required = false) String namePrefix,
+            @RequestParam(value = "email", required = false) String emailPrefix,
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "limit", defaultValue = "100") int limit
+    ){
+        CustomerSearch search = new CustomerSearch(minAge, maxAge, gender, namePrefix, emailPrefix);
+        return pageResponse(customerService.searchCustomers(search, after, limit));
+    }
+
+    @GetMapping("search/name")
+    public ResponseEntity<List<Customer>> searchCustomersByName(
+            @RequestParam("q") String query,
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", defaultValue = "100") int limit
+    ){
+        // the cursor of a ranked page is the offset of the next one
+        return pageResponse(customerService.searchCustomersByName(query, offset, limit));
+    }
+
+    private static ResponseEntity<List<Customer>> pageResponse(CustomerPage page){
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if(page.nextCursor() != null){
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor().toString());
+        }
+        return response.body(page.customers());
+    }
+
+    private static String etag(Long customerId, long version, String suffix){
+        return "\"%d-%d%s\"".formatted(customerId, version, suffix);
+    }
 
-        return customerService.getCustomerById(customerId);
+    /**
+     * Every encoding of a customer is a different byte sequence, so each gets
+     * its own strong tag, and caches are told the body varies by Accept.
+     */
+    private String etagSuffix(NativeWebRequest request) throws HttpMediaTypeNotAcceptableException {
+        request.getNativeResponse(HttpServletResponse.class).addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        // looked up on use, the manager only exists in a web application context
+        for (MediaType accepted : contentNegotiationManager.getObject().resolveMediaTypes(request)) {
+            for (Map.Entry<MediaType, String> representation : ETAG_SUFFIXES.entrySet()) {
+                if(accepted.isCompatibleWith(representation.getKey())){
+                    return representation.getValue();
+                }
+            }
+        }
+        return "";
     }
+
+    @GetMapping(value = "export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody exportCustomers(){
+        // one JSON document per line, written as rows come off the cursor;
+        // the servlet buffer decides when bytes actually go out
+        ObjectWriter writer = objectMapper.writerFor(Customer.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                customerService.exportCustomers(customer -> {
+                    try {
+                        writer.writeValue(generator, customer);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+    }
+
+    @GetMapping("{customerId}")
+    public ResponseEntity<Customer> getCustomerById(@PathVariable("customerId") Long customerId, NativeWebRequest request)
+            throws HttpMediaTypeNotAcceptableException {
+        String suffix = etagSuffix(request);
+        // a revalidation only needs the version, the row is read when it changed
+        if(request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(etag(customerId, customerService.getCustomerVersion(customerId), suffix))){
+            return null;
+        }
+        Customer customer = customerService.getCustomerById(customerId);
+        return ResponseEntity.ok()
+                .eTag(etag(customerId, customer.getVersion(), suffix))
+                .body(customer);
+    }
+
     @PostMapping
-    public void registerCustomer(@RequestBody CustomerRegistrationRequest request){
-        customerService.addCustomer(request);
+    public ResponseEntity<CustomerRegistration> registerCustomer(@RequestBody CustomerRegistrationRequest request){
+        if(registrationQueue.isEmpty()){
+            customerService.addCustomer(request);
+            return ResponseEntity.ok().build();
+        }
+        // written behind the request, the outcome is polled from the location
+        CustomerRegistration registration = registrationQueue.get().enqueue(request);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/customers/registrations/" + registration.id()))
+                .body(registration);
+    }
+    @GetMapping("registrations/{registrationId}")
+    public CustomerRegistration getRegistration(@PathVariable("registrationId") String registrationId){
+        return registrationQueue
+                .flatMap(queue -> queue.registration(registrationId))
+                .orElseThrow(()->new ResourceNotFoundException("registration [%s] not found".formatted(registrationId)));
+    }
+    @PostMapping("batch")
+    public List<CustomerBatchResult> registerCustomers(@RequestBody List<CustomerRegistrationRequest> requests){
+        return customerService.addCustomers(requests);
+    }
+    @PostMapping(value = "import", consumes = "text/csv")
+    public CustomerImportResult importCustomers(
+            @RequestParam(value = "header", defaultValue = "true") boolean header,
+            InputStream csv
+    ){
+        // the raw request stream goes straight to COPY, nothing is buffered here
+        return customerImportService.importCsv(csv, header);
     }
     @DeleteMapping("{customerId}")
     public void deleteCustomer(@PathVariable("customerId") Long customerId){
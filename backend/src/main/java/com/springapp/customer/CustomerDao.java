@@ -2,13 +2,23 @@ package com.springapp.customer;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface CustomerDao {
     List<Customer> selectAllCustomers();
+    List<Customer> selectCustomersAfter(long afterId, int limit);
+    List<Customer> searchCustomers(CustomerSearch search, long afterId, int limit);
+    List<Customer> searchCustomersByName(String query, int offset, int limit);
+    void streamAllCustomers(Consumer<Customer> consumer);
     Optional<Customer> selectCustomerById(Long id);
+    Optional<Long> selectCustomerVersion(Long id);
+    /**
+     * A marker that changes whenever any customer is inserted, updated or
+     * deleted, for revalidating pages without reading them.
+     */
+    long selectCustomersRevision();
     void insertCustomer(Customer customer);
-    boolean existsCustomerWithEmail(String email);
-    boolean existsCustomerById(Long id);
+    List<Boolean> insertCustomers(List<Customer> customers);
     void deleteCustomerById(Long id);
     void updateCustomer(Customer update);
 }
@@ -0,0 +1,61 @@
+package com.springapp.customer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.time.Duration;
+
+@Configuration
+@Profile("!reactive")
+public class CustomerDaoConfig {
+    @Value("${customer.dao:jdbc}")
+    private String implementation;
+
+    @Value("${customer.cache.enabled:false}")
+    private boolean cacheEnabled;
+
+    @Value("${customer.cache.maximum-size:10000}")
+    private long cacheMaximumSize;
+
+    @Value("${customer.cache.expire-after-write:10m}")
+    private Duration cacheExpireAfterWrite;
+
+    @Value("${datasource.replicas.enabled:false}")
+    private boolean replicasEnabled;
+
+    @Value("${customer.second-level-cache.enabled:false}")
+    private boolean secondLevelCacheEnabled;
+
+    /**
+     * The {@link CustomerDao} used by the service: the implementation named by
+     * {@code customer.dao}, evicting what it writes from Hibernate's
+     * second-level cache when that is on, reading from replicas when they are
+     * configured, metered, and wrapped in the decorators that are switched on.
+     */
+    @Bean
+    public CustomerDao customerDao(BeanFactory beanFactory,
+                                   MeterRegistry meterRegistry,
+                                   ObjectProvider<CustomerSecondLevelCache> secondLevelCache) {
+        CustomerDao customerDao = beanFactory.getBean(implementation, CustomerDao.class);
+        if(secondLevelCacheEnabled){
+            customerDao = new CacheEvictingCustomerDao(customerDao, secondLevelCache.getObject());
+        }
+        if(replicasEnabled){
+            customerDao = new ReplicaReadingCustomerDao(customerDao);
+        }
+        customerDao = new MeteredCustomerDao(customerDao, implementation, meterRegistry);
+        if(cacheEnabled){
+            customerDao = new CachingCustomerDao(
+                    customerDao,
+                    cacheMaximumSize,
+                    cacheExpireAfterWrite,
+                    meterRegistry);
+        }
+        return customerDao;
+    }
+}
@@ -0,0 +1,8 @@
+package com.springapp.customer;
+
+public record CustomerImportResult(
+        long rowsLoaded,
+        long rowsRejected,
+        long durationMillis,
+        double rowsPerSecond
+){}
@@ -0,0 +1,115 @@
+package com.springapp.customer;
+
+import com.springapp.config.ReplicaRoutingDataSource;
+import com.springapp.exception.RequestValidationException;
+import org.postgresql.PGConnection;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.Statement;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Bulk loads customers from CSV ({@code name,email,age,gender}) with Postgres COPY.
+ * Rows are copied as text into a transaction scoped staging table and merged into
+ * {@code customer} in one statement, so rows with invalid values and taken emails
+ * are rejected without failing the load and {@code customer_email_unique} still holds.
+ * A line COPY cannot parse at all, such as one with the wrong number of columns,
+ * fails the whole load with a 400 naming that line.
+ */
+@Service
+@Profile("!reactive")
+public class CustomerImportService {
+    private static final Pattern COPY_LINE = Pattern.compile("line \\d+");
+    private final JdbcTemplate jdbcTemplate;
+
+    public CustomerImportService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional
+    public CustomerImportResult importCsv(InputStream csv, boolean header) {
+        long start = System.nanoTime();
+        // a write, so the client reads the imported rows back from the primary
+        long[] counts = ReplicaRoutingDataSource.write(() -> jdbcTemplate.execute((ConnectionCallback<long[]>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("""
+                        CREATE TEMP TABLE customer_import(
+                            name TEXT,
+                            email TEXT,
+                            age TEXT,
+                            gender TEXT
+                        ) ON COMMIT DROP
+                        """);
+            }
+            long staged;
+            try {
+                staged = connection.unwrap(PGConnection.class)
+                        .getCopyAPI()
+                        .copyIn(
+                                "COPY customer_import(name,email,age,gender) FROM STDIN WITH (FORMAT csv, HEADER %s)"
+                                        .formatted(header),
+                                csv
+                        );
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (PSQLException e) {
+                if(isMalformedCsv(e)){
+                    throw malformedCsv(e);
+                }
+                throw e;
+            }
+            long loaded;
+            try (Statement statement = connection.createStatement()) {
+                loaded = statement.executeLargeUpdate("""
+                        INSERT INTO customer(name,email,age,gender)
+                        SELECT DISTINCT ON (email) name, email, age::INT, gender
+                        FROM customer_import
+                        WHERE name IS NOT NULL
+                        AND email IS NOT NULL
+                        AND age ~ '^[0-9]{1,9}$'
+                        AND gender IN ('MALE', 'FEMALE')
+                        ORDER BY email
+                        ON CONFLICT (email) DO NOTHING
+                        """);
+            }
+            return new long[]{staged, loaded};
+        }));
+        long durationNanos = System.nanoTime() - start;
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        double rowsPerSecond = durationNanos == 0 ? 0 : counts[1] * 1e9 / durationNanos;
+        return new CustomerImportResult(
+                counts[1],
+                counts[0] - counts[1],
+                durationMillis,
+                rowsPerSecond
+        );
+    }
+
+    private static boolean isMalformedCsv(PSQLException e) {
+        // class 22 is a data exception, anything else is not the client's fault
+        return e.getServerErrorMessage() != null
+                && e.getSQLState() != null
+                && e.getSQLState().startsWith("22");
+    }
+
+    private static RequestValidationException malformedCsv(PSQLException e) {
+        ServerErrorMessage error = e.getServerErrorMessage();
+        // where reads "COPY customer_import, line 3: ...", the line count includes the header
+        Matcher line = COPY_LINE.matcher(Objects.requireNonNullElse(error.getWhere(), ""));
+        return new RequestValidationException(line.find()
+                ? "malformed CSV at %s: %s".formatted(line.group(), error.getMessage())
+                : "malformed CSV: %s".formatted(error.getMessage()));
+    }
+}
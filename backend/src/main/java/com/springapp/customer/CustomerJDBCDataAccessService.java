@@ -1,17 +1,43 @@
 package com.springapp.customer;
 
+import com.springapp.exception.DuplicateResourceException;
+import com.springapp.exception.RequestValidationException;
 import com.springapp.exception.ResourceNotFoundException;
+import com.springapp.exception.StaleResourceException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Repository("jdbc")
+@Profile("!reactive")
 public class CustomerJDBCDataAccessService implements CustomerDao{
+    static final String SEARCH_BY_NAME_SQL = """
+            SELECT id,name,email,age,gender,version FROM customer
+            WHERE name_search @@ to_tsquery('simple', ?) OR ? <% name
+            ORDER BY ts_rank(name_search, to_tsquery('simple', ?)) + word_similarity(?, name) DESC, id
+            LIMIT ? OFFSET ?
+            """;
 
     private final JdbcTemplate jdbcTemplate;
     private final CustomerRowMapper customerRowMapper;
+    @Value("${customer.export.fetch-size:1000}")
+    private int exportFetchSize = 1000;
+    @Value("${customer.batch.size:500}")
+    private int batchSize = 500;
 
     public CustomerJDBCDataAccessService(JdbcTemplate jdbcTemplate, CustomerRowMapper customerRowMapper) {
         this.jdbcTemplate = jdbcTemplate;
@@ -21,16 +47,112 @@ public class CustomerJDBCDataAccessService implements CustomerDao{
     @Override
     public List<Customer> selectAllCustomers() {
         var sql = """
-                SELECT id,name,email,age,gender from customer
+                SELECT id,name,email,age,gender,version from customer
                 """;
         List<Customer> customers = jdbcTemplate.query(sql, customerRowMapper);
         return customers;
     }
 
+    @Override
+    public List<Customer> selectCustomersAfter(long afterId, int limit) {
+        var sql = """
+                SELECT id,name,email,age,gender,version FROM customer
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?
+                """;
+        return jdbcTemplate.query(sql, customerRowMapper, afterId, limit);
+    }
+
+    @Override
+    public List<Customer> searchCustomers(CustomerSearch search, long afterId, int limit) {
+        SearchQuery query = searchQuery(search, afterId, limit);
+        return jdbcTemplate.query(query.sql(), customerRowMapper, query.args().toArray());
+    }
+
+    /**
+     * Matches on the prefix tsquery through the GIN index of {@code name_search}
+     * or on trigram word similarity through the {@code pg_trgm} index, and
+     * ranks by both so exact words come first and misspellings after.
+     */
+    @Override
+    public List<Customer> searchCustomersByName(String query, int offset, int limit) {
+        String tsQuery = NameSearch.prefixTsQuery(query);
+        return jdbcTemplate.query(SEARCH_BY_NAME_SQL, customerRowMapper, tsQuery, query, tsQuery, query, limit, offset);
+    }
+
+    record SearchQuery(String sql, List<Object> args) {
+    }
+
+    /**
+     * Builds the search statement with one bound predicate per filter. The
+     * prefixes are matched as {@code lower(column) LIKE 'prefix%'}, which the
+     * {@code text_pattern_ops} indexes of V5 turn into an index range scan.
+     */
+    static SearchQuery searchQuery(CustomerSearch search, long afterId, int limit) {
+        List<String> predicates = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        predicates.add("id > ?");
+        args.add(afterId);
+        if(search.minAge() != null){
+            predicates.add("age >= ?");
+            args.add(search.minAge());
+        }
+        if(search.maxAge() != null){
+            predicates.add("age <= ?");
+            args.add(search.maxAge());
+        }
+        if(search.gender() != null){
+            predicates.add("gender = ?");
+            args.add(search.gender().name());
+        }
+        if(search.namePrefix() != null){
+            predicates.add("lower(name) LIKE ?");
+            args.add(CustomerSearch.likePattern(search.namePrefix()));
+        }
+        if(search.emailPrefix() != null){
+            predicates.add("lower(email) LIKE ?");
+            args.add(CustomerSearch.likePattern(search.emailPrefix()));
+        }
+        args.add(limit);
+        var sql = """
+                SELECT id,name,email,age,gender,version FROM customer
+                WHERE %s
+                ORDER BY id
+                LIMIT ?
+                """.formatted(String.join(" AND ", predicates));
+        return new SearchQuery(sql, args);
+    }
+
+    /**
+     * Streams every row to the consumer as it comes off the cursor. Postgres only
+     * honours the fetch size inside a transaction, otherwise the driver would
+     * buffer the whole result set before the first row is handed out.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllCustomers(Consumer<Customer> consumer) {
+        var sql = """
+                SELECT id,name,email,age,gender,version FROM customer
+                """;
+        jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            sql,
+                            ResultSet.TYPE_FORWARD_ONLY,
+                            ResultSet.CONCUR_READ_ONLY
+                    );
+                    statement.setFetchSize(exportFetchSize);
+                    return statement;
+                },
+                (RowCallbackHandler) rs -> consumer.accept(customerRowMapper.mapRow(rs, rs.getRow()))
+        );
+    }
+
     @Override
     public Optional<Customer> selectCustomerById(Long id) {
         var sql = """
-                SELECT id,name,email,age,gender FROM customer
+                SELECT id,name,email,age,gender,version FROM customer
                 WHERE id = ?
                 """;
         return jdbcTemplate.query(sql, customerRowMapper,id)
@@ -38,77 +160,168 @@ public class CustomerJDBCDataAccessService implements CustomerDao{
                 .findFirst();
     }
 
+    @Override
+    public Optional<Long> selectCustomerVersion(Long id) {
+        var sql = """
+                SELECT version FROM customer
+                WHERE id = ?
+                """;
+        return jdbcTemplate.queryForList(sql, Long.class, id)
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public long selectCustomersRevision() {
+        var sql = """
+                SELECT CAST(sum(revision) AS BIGINT) FROM customer_revision
+                """;
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    /**
+     * Inserts the customer in a single statement; a taken email is reported by
+     * ON CONFLICT returning no id rather than by a lookup beforehand, so two
+     * concurrent registrations cannot both pass a check.
+     */
     @Override
     public void insertCustomer(Customer customer) {
         var sql = """
                 INSERT INTO customer(name,email,age,gender)
                 VALUES (?,?,?,?)
+                ON CONFLICT (email) DO NOTHING
+                RETURNING id
                 """;
-        int result = jdbcTemplate.update(
+        List<Long> ids = jdbcTemplate.queryForList(
                 sql,
+                Long.class,
                 customer.getName(),
                 customer.getEmail(),
                 customer.getAge(),
                 customer.getGender().name()
         );
-        System.out.println("JdbcTemplate.update = "+ result);
-    }
-
-    @Override
-    public boolean existsCustomerWithEmail(String email) {
-        var sql = """
-                SELECT count(*) FROM customer
-                WHERE email = ?
-                """;
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, email);
-        return count != null && count > 0;
+        if(ids.isEmpty()){
+            throw new DuplicateResourceException("email already taken");
+        }
+        customer.setId(ids.get(0));
+        customer.setVersion(0L);
     }
 
+    /**
+     * Inserts the customers with one multi-row statement per {@code batchSize}
+     * rows, sent as four arrays. Taken emails, including rows that lose a race
+     * to a concurrent registration, are skipped by ON CONFLICT, and the emails
+     * the statement returns are the ones that went in.
+     */
     @Override
-    public boolean existsCustomerById(Long id) {
+    @Transactional
+    public List<Boolean> insertCustomers(List<Customer> customers) {
         var sql = """
-                SELECT count(*) FROM customer
-                WHERE id = ?
+                INSERT INTO customer(name,email,age,gender)
+                SELECT * FROM unnest(?::TEXT[], ?::TEXT[], ?::INT[], ?::TEXT[])
+                ON CONFLICT (email) DO NOTHING
+                RETURNING email
                 """;
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, id);
-        return count != null && count > 0;
+        Set<String> insertedEmails = new HashSet<>();
+        for (int from = 0; from < customers.size(); from += batchSize) {
+            List<Customer> chunk = customers.subList(from, Math.min(from + batchSize, customers.size()));
+            jdbcTemplate.query(
+                    connection -> {
+                        PreparedStatement statement = connection.prepareStatement(sql);
+                        statement.setArray(1, connection.createArrayOf("text",
+                                chunk.stream().map(Customer::getName).toArray(String[]::new)));
+                        statement.setArray(2, connection.createArrayOf("text",
+                                chunk.stream().map(Customer::getEmail).toArray(String[]::new)));
+                        statement.setArray(3, connection.createArrayOf("int4",
+                                chunk.stream().map(Customer::getAge).toArray(Integer[]::new)));
+                        statement.setArray(4, connection.createArrayOf("text",
+                                chunk.stream().map(c -> c.getGender().name()).toArray(String[]::new)));
+                        return statement;
+                    },
+                    (RowCallbackHandler) rs -> insertedEmails.add(rs.getString("email"))
+            );
+        }
+        return customers.stream()
+                .map(c -> insertedEmails.contains(c.getEmail()))
+                .toList();
     }
 
     @Override
     public void deleteCustomerById(Long id) {
-        if(!existsCustomerById(id)){
-            throw new ResourceNotFoundException("customer with id [%s] not found".formatted(id));
-        }
         var  sql = """
                 DELETE FROM customer
                 WHERE id = ?
+                RETURNING id
                 """;
-        int result = jdbcTemplate.update(sql, id);
-        System.out.println("JdbcTemplate.delete = "+ result);
+        if(jdbcTemplate.queryForList(sql, Long.class, id).isEmpty()){
+            throw new ResourceNotFoundException("customer with id [%s] not found".formatted(id));
+        }
     }
 
+    /**
+     * Applies the non-null fields of {@code update} in a single statement. When a
+     * version is supplied the row is only touched if it still carries that version,
+     * and rows whose provided values are already current are left alone. The
+     * failure cause is looked up only when no row was updated.
+     */
     @Override
     public void updateCustomer(Customer update) {
+        List<String> columns = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
         if(update.getName() != null){
-            String sql = """
-                    UPDATE customer SET name = ? WHERE id = ?
-                    """;
-            int result = jdbcTemplate.update(sql, update.getName(), update.getId());
-            System.out.println("update customer name result = "+ result);
+            columns.add("name");
+            values.add(update.getName());
         }
         if(update.getEmail() != null){
-            String sql = """
-                    UPDATE customer SET email = ? WHERE id = ?
-                    """;
-            int result = jdbcTemplate.update(sql, update.getEmail(), update.getId());
-            System.out.println("update customer email result = "+ result);
+            columns.add("email");
+            values.add(update.getEmail());
         }
         if(update.getAge() != null){
-            String sql = """
-                    UPDATE customer SET age = ? WHERE id = ?
-                    """;
-            int result = jdbcTemplate.update(sql, update.getAge(), update.getId());
-            System.out.println("update customer name result = "+ result);
+            columns.add("age");
+            values.add(update.getAge());
+        }
+        if(columns.isEmpty()){
+            return;
+        }
+        var sql = """
+                UPDATE customer SET %s, version = version + 1
+                WHERE id = ? %s
+                AND (%s) IS DISTINCT FROM (%s)
+                """.formatted(
+                columns.stream().map(c -> c + " = ?").collect(Collectors.joining(", ")),
+                update.getVersion() != null ? "AND version = ?" : "",
+                String.join(", ", columns),
+                columns.stream().map(c -> "?").collect(Collectors.joining(", "))
+        );
+        List<Object> args = new ArrayList<>(values);
+        args.add(update.getId());
+        if(update.getVersion() != null){
+            args.add(update.getVersion());
+        }
+        args.addAll(values);
+        int result;
+        try {
+            result = jdbcTemplate.update(sql, args.toArray());
+        } catch (DuplicateKeyException e) {
+            throw new DuplicateResourceException("email already taken");
+        }
+        if(result == 0){
+            throw updateFailure(update);
+        }
+    }
+
+    private RuntimeException updateFailure(Customer update) {
+        var sql = """
+                SELECT version FROM customer
+                WHERE id = ?
+                """;
+        List<Long> versions = jdbcTemplate.queryForList(sql, Long.class, update.getId());
+        if(versions.isEmpty()){
+            return new ResourceNotFoundException("customer with id [%s] not found".formatted(update.getId()));
+        }
+        if(update.getVersion() != null && !update.getVersion().equals(versions.get(0))){
+            return new StaleResourceException("customer with id [%s] was modified concurrently".formatted(update.getId()));
         }
+        return new RequestValidationException("no data changes found");
     }
 }
@@ -1,21 +1,86 @@
 package com.springapp.customer;
 
+import com.springapp.exception.DuplicateResourceException;
+import com.springapp.exception.RequestValidationException;
+import com.springapp.exception.ResourceNotFoundException;
+import com.springapp.exception.StaleResourceException;
+import jakarta.persistence.EntityManager;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Repository("jpa")
+@Profile("!reactive")
 public class CustomerJPADataAccessService implements CustomerDao{
+    private static final String EMAIL_CONSTRAINT = "customer_email_unique";
+    private static final int MAX_INSERT_ATTEMPTS = 3;
     private final CustomerRepository customerRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    @Value("${customer.batch.size:500}")
+    private int batchSize = 500;
 
-    public CustomerJPADataAccessService(CustomerRepository customerRepository) {
+    public CustomerJPADataAccessService(CustomerRepository customerRepository,
+                                        EntityManager entityManager,
+                                        PlatformTransactionManager transactionManager) {
         this.customerRepository = customerRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
+    /**
+     * Lists through {@link CustomerView} projections, so the customers come
+     * back detached and the persistence context stays empty.
+     */
     @Override
     public List<Customer> selectAllCustomers() {
-        return customerRepository.findAll();
+        return customerRepository.findAllViews().stream()
+                .map(CustomerView::toCustomer)
+                .toList();
+    }
+
+    @Override
+    public List<Customer> selectCustomersAfter(long afterId, int limit) {
+        return customerRepository.findViewsByIdGreaterThan(afterId, PageRequest.ofSize(limit)).stream()
+                .map(CustomerView::toCustomer)
+                .toList();
+    }
+
+    @Override
+    public List<Customer> searchCustomers(CustomerSearch search, long afterId, int limit) {
+        return customerRepository.search(search, afterId, limit);
+    }
+
+    @Override
+    public List<Customer> searchCustomersByName(String query, int offset, int limit) {
+        return customerRepository.searchByName(query, NameSearch.prefixTsQuery(query), offset, limit);
+    }
+
+    /**
+     * Reads every customer from one server-side cursor, which Postgres only
+     * keeps open inside a transaction; the read-only transaction also tells
+     * Hibernate it never has to flush.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllCustomers(Consumer<Customer> consumer) {
+        try (Stream<CustomerView> customers = customerRepository.streamAllViews()) {
+            customers.map(CustomerView::toCustomer).forEach(consumer);
+        }
     }
 
     @Override
@@ -24,27 +89,124 @@ public class CustomerJPADataAccessService implements CustomerDao{
     }
 
     @Override
-    public void insertCustomer(Customer customer) {
-        customerRepository.save(customer);
+    public Optional<Long> selectCustomerVersion(Long id) {
+        return customerRepository.findVersionById(id);
+    }
+
+    @Override
+    public long selectCustomersRevision() {
+        return customerRepository.findRevision();
     }
 
     @Override
-    public boolean existsCustomerWithEmail(String email) {
-        return customerRepository.existsCustomerByEmail(email);
+    public void insertCustomer(Customer customer) {
+        Long id = customerRepository.insertIfEmailAbsent(
+                        customer.getName(),
+                        customer.getEmail(),
+                        customer.getAge(),
+                        customer.getGender().name())
+                .orElseThrow(()->new DuplicateResourceException("email already taken"));
+        customer.setId(id);
+        customer.setVersion(0L);
     }
 
+    /**
+     * Saves the customers in chunks of {@code batchSize}. Each chunk is flushed
+     * as JDBC batches of {@code hibernate.jdbc.batch_size} inserts, with ids
+     * taken from the pooled sequence blocks, and then cleared so the
+     * persistence context only ever holds one chunk. Emails that are already
+     * taken are skipped.
+     * <p>
+     * A registration can still take one of the emails between the lookup and
+     * the flush. Hibernate cannot carry on after a failed flush, so the unique
+     * violation rolls the whole batch back and it is tried again, now with that
+     * email among the taken ones. That needs the batch to own its transaction:
+     * inside a caller's transaction the violation is thrown as is.
+     */
     @Override
-    public boolean existsCustomerById(Long id) {
-        return customerRepository.existsCustomerById(id);
+    public List<Boolean> insertCustomers(List<Customer> customers) {
+        boolean retryable = !TransactionSynchronizationManager.isActualTransactionActive();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> insertAbsentCustomers(customers));
+            } catch (RuntimeException e) {
+                if(!retryable || attempt == MAX_INSERT_ATTEMPTS || !isEmailTaken(e)){
+                    throw e;
+                }
+                customers.forEach(c -> {
+                    c.setId(null);
+                    c.setVersion(null);
+                });
+            }
+        }
+    }
+
+    private List<Boolean> insertAbsentCustomers(List<Customer> customers) {
+        Set<String> takenEmails = customerRepository.findExistingEmails(
+                customers.stream().map(Customer::getEmail).toList()
+        );
+        List<Customer> candidates = customers.stream()
+                .filter(c -> !takenEmails.contains(c.getEmail()))
+                .toList();
+        for (int from = 0; from < candidates.size(); from += batchSize) {
+            customerRepository.saveAll(candidates.subList(from, Math.min(from + batchSize, candidates.size())));
+            entityManager.flush();
+            entityManager.clear();
+        }
+        return customers.stream()
+                .map(c -> !takenEmails.contains(c.getEmail()))
+                .toList();
+    }
+
+    private static boolean isEmailTaken(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if(cause instanceof ConstraintViolationException violation){
+                return EMAIL_CONSTRAINT.equals(violation.getConstraintName());
+            }
+        }
+        return false;
     }
 
     @Override
     public void deleteCustomerById(Long id) {
-        customerRepository.deleteById(id);
+        if(customerRepository.deleteReturningId(id).isEmpty()){
+            throw new ResourceNotFoundException("customer with id [%s] not found".formatted(id));
+        }
     }
 
     @Override
+    @Transactional
     public void updateCustomer(Customer update) {
-        customerRepository.save(update);
+        Customer customer = customerRepository.findById(update.getId())
+                .orElseThrow(()->new ResourceNotFoundException("customer with id [%s] not found".formatted(update.getId())));
+        if(update.getVersion() != null && !update.getVersion().equals(customer.getVersion())){
+            throw new StaleResourceException("customer with id [%s] was modified concurrently".formatted(update.getId()));
+        }
+        if(update.getName() == null && update.getEmail() == null && update.getAge() == null){
+            return;
+        }
+        boolean changes = false;
+        if(update.getName() != null && !update.getName().equals(customer.getName())){
+            customer.setName(update.getName());
+            changes = true;
+        }
+        if(update.getEmail() != null && !update.getEmail().equals(customer.getEmail())){
+            customer.setEmail(update.getEmail());
+            changes = true;
+        }
+        if(update.getAge() != null && !update.getAge().equals(customer.getAge())){
+            customer.setAge(update.getAge());
+            changes = true;
+        }
+        if(!changes){
+            throw new RequestValidationException("no data changes found");
+        }
+        try {
+            customerRepository.saveAndFlush(customer);
+        } catch (DataIntegrityViolationException e) {
+            throw new DuplicateResourceException("email already taken");
+        } catch (OptimisticLockingFailureException e) {
+            throw new StaleResourceException("customer with id [%s] was modified concurrently".formatted(update.getId()));
+        }
     }
 }
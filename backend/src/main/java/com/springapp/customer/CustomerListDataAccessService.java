@@ -1,60 +1,204 @@
 package com.springapp.customer;
 
+import com.springapp.exception.DuplicateResourceException;
+import com.springapp.exception.RequestValidationException;
+import com.springapp.exception.ResourceNotFoundException;
+import com.springapp.exception.StaleResourceException;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * In-memory store indexed by id and by email. Reads are lock-free; writes to an
+ * existing customer are serialised per id through lock striping, and an email is
+ * reserved in the email index before it becomes visible so it can only ever
+ * belong to one customer. Stored customers are never mutated, updates swap in a
+ * new instance and callers always get copies.
+ */
 @Repository("list")
+@Profile("!reactive")
 public class CustomerListDataAccessService implements CustomerDao{
-    private static final List<Customer> customers;
-    static {
-        customers = new ArrayList<>();
-        Customer hamza = new Customer("Hamza", "hamza@gmail.com",30, Gender.MALE);
-        customers.add(hamza);
-        Customer nissrine = new Customer("Nissrine", "nissrine@gmail.com",29, Gender.MALE);
-        customers.add(nissrine);
+    private static final int LOCK_STRIPES = 64;
+
+    // ordered so keyset pages are a tail view instead of a sort
+    private final ConcurrentNavigableMap<Long, Customer> customersById = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, Long> idsByEmail = new ConcurrentHashMap<>();
+    private final AtomicLong idSequence = new AtomicLong();
+    private final AtomicLong revision = new AtomicLong();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public CustomerListDataAccessService() {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        insertCustomer(new Customer("Hamza", "hamza@gmail.com",30, Gender.MALE));
+        insertCustomer(new Customer("Nissrine", "nissrine@gmail.com",29, Gender.MALE));
     }
+
     @Override
     public List<Customer> selectAllCustomers() {
+        List<Customer> customers = new ArrayList<>(customersById.size());
+        customersById.values().forEach(c -> customers.add(new Customer(c)));
+        return customers;
+    }
+
+    @Override
+    public List<Customer> selectCustomersAfter(long afterId, int limit) {
+        List<Customer> customers = new ArrayList<>(limit);
+        for (Customer customer : customersById.tailMap(afterId, false).values()) {
+            if(customers.size() == limit){
+                break;
+            }
+            customers.add(new Customer(customer));
+        }
+        return customers;
+    }
+
+    @Override
+    public List<Customer> searchCustomers(CustomerSearch search, long afterId, int limit) {
+        List<Customer> customers = new ArrayList<>();
+        for (Customer customer : customersById.tailMap(afterId, false).values()) {
+            if(customers.size() == limit){
+                break;
+            }
+            if(search.matches(customer)){
+                customers.add(new Customer(customer));
+            }
+        }
         return customers;
     }
 
+    @Override
+    public List<Customer> searchCustomersByName(String query, int offset, int limit) {
+        List<String> words = NameSearch.words(query);
+        record Match(Customer customer, double score) {
+        }
+        return customersById.values().stream()
+                .map(customer -> new Match(customer, NameSearch.score(words, customer.getName())))
+                .filter(match -> match.score() >= NameSearch.WORD_SIMILARITY_THRESHOLD)
+                .sorted(Comparator.comparingDouble(Match::score).reversed()
+                        .thenComparing(match -> match.customer().getId()))
+                .skip(offset)
+                .limit(limit)
+                .map(match -> new Customer(match.customer()))
+                .toList();
+    }
+
+    @Override
+    public void streamAllCustomers(Consumer<Customer> consumer) {
+        customersById.values().forEach(c -> consumer.accept(new Customer(c)));
+    }
+
     @Override
     public Optional<Customer> selectCustomerById(Long id) {
-        return customers
-                .stream()
-                .filter(c->c.getId().equals(id))
-                .findFirst();
+        return Optional.ofNullable(customersById.get(id)).map(Customer::new);
     }
 
     @Override
-    public void insertCustomer(Customer customer) {
-        customers.add(customer);
+    public Optional<Long> selectCustomerVersion(Long id) {
+        return Optional.ofNullable(customersById.get(id)).map(Customer::getVersion);
     }
 
     @Override
-    public boolean existsCustomerWithEmail(String email) {
-        return customers.stream()
-                .anyMatch(c->c.getEmail().equals(email));
+    public long selectCustomersRevision() {
+        return revision.get();
     }
 
     @Override
-    public boolean existsCustomerById(Long id) {
-        return customers.stream().anyMatch(c->c.getId().equals(id));
+    public void insertCustomer(Customer customer) {
+        long id = idSequence.incrementAndGet();
+        if(idsByEmail.putIfAbsent(customer.getEmail(), id) != null){
+            throw new DuplicateResourceException("email already taken");
+        }
+        customer.setId(id);
+        customer.setVersion(0L);
+        customersById.put(id, new Customer(customer));
+        revision.incrementAndGet();
+    }
 
+    @Override
+    public List<Boolean> insertCustomers(List<Customer> batch) {
+        List<Boolean> results = new ArrayList<>(batch.size());
+        for (Customer customer : batch) {
+            try {
+                insertCustomer(customer);
+                results.add(true);
+            } catch (DuplicateResourceException e) {
+                results.add(false);
+            }
+        }
+        return results;
     }
 
     @Override
     public void deleteCustomerById(Long id) {
-        customers.stream()
-                .filter(c->c.getId().equals(id))
-                .findFirst()
-                .ifPresent(customers::remove);
+        synchronized (lockFor(id)) {
+            Customer removed = customersById.remove(id);
+            if(removed == null){
+                throw new ResourceNotFoundException("customer with id [%s] not found".formatted(id));
+            }
+            idsByEmail.remove(removed.getEmail(), id);
+            revision.incrementAndGet();
+        }
     }
 
     @Override
-    public void updateCustomer(Customer customer) {
-        customers.add(customer);
+    public void updateCustomer(Customer update) {
+        if(update.getName() == null && update.getEmail() == null && update.getAge() == null){
+            return;
+        }
+        Long id = update.getId();
+        synchronized (lockFor(id)) {
+            Customer current = customersById.get(id);
+            if(current == null){
+                throw new ResourceNotFoundException("customer with id [%s] not found".formatted(id));
+            }
+            if(update.getVersion() != null && !update.getVersion().equals(current.getVersion())){
+                throw new StaleResourceException("customer with id [%s] was modified concurrently".formatted(id));
+            }
+            Customer next = new Customer(current);
+            boolean changes = false;
+            if(update.getName() != null && !update.getName().equals(current.getName())){
+                next.setName(update.getName());
+                changes = true;
+            }
+            if(update.getAge() != null && !update.getAge().equals(current.getAge())){
+                next.setAge(update.getAge());
+                changes = true;
+            }
+            boolean emailChanged = update.getEmail() != null && !update.getEmail().equals(current.getEmail());
+            if(emailChanged){
+                Long owner = idsByEmail.putIfAbsent(update.getEmail(), id);
+                if(owner != null && !owner.equals(id)){
+                    throw new DuplicateResourceException("email already taken");
+                }
+                next.setEmail(update.getEmail());
+                changes = true;
+            }
+            if(!changes){
+                throw new RequestValidationException("no data changes found");
+            }
+            next.setVersion(current.getVersion() + 1);
+            customersById.put(id, next);
+            if(emailChanged){
+                idsByEmail.remove(current.getEmail(), id);
+            }
+            revision.incrementAndGet();
+        }
+    }
+
+    private Object lockFor(Long id) {
+        return locks[Math.floorMod(Objects.hashCode(id), LOCK_STRIPES)];
     }
 }
@@ -0,0 +1,410 @@
+package com.springapp.customer;
+
+import com.springapp.exception.DuplicateResourceException;
+import com.springapp.exception.RequestValidationException;
+import com.springapp.exception.ResourceNotFoundException;
+import com.springapp.exception.StaleResourceException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory store that keeps customers outside the Java heap in columns of
+ * direct buffers: age and version as primitives, gender as one byte (0 marks a
+ * deleted slot), and name and email as UTF-8 bytes in an append-only arena,
+ * referenced by packed offset and length. {@link Customer} objects only exist
+ * for rows being returned.
+ * <p>
+ * Ids are assigned densely as {@code slot + 1}, so the id index is the slot
+ * arithmetic itself and slot order is id order for keyset pages. Emails are
+ * indexed by 64-bit hash in a primitive map; the rare emails whose hash is
+ * already taken by another email go to a small overflow map. Deleted slots and
+ * arena bytes replaced by updates are not reclaimed.
+ */
+@Repository("offheap")
+@Profile("!reactive")
+public class CustomerOffHeapDataAccessService implements CustomerDao {
+    static final int MAX_ARENA_SIZE = Integer.MAX_VALUE - 8;
+    private static final byte DELETED = 0;
+    private static final Gender[] GENDERS = Gender.values();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private ByteBuffer ages;
+    private ByteBuffer versions;
+    private ByteBuffer genders;
+    private ByteBuffer nameRefs;
+    private ByteBuffer emailRefs;
+    private ByteBuffer arena;
+    private int capacity;
+    private int slots;
+    private int arenaSize;
+    private long revision;
+    private final LongIntHashMap slotsByEmailHash;
+    private final Map<String, Integer> collidingEmails = new HashMap<>();
+
+    public CustomerOffHeapDataAccessService(
+            @Value("${customer.offheap.initial-capacity:1024}") int initialCapacity) {
+        capacity = Math.max(initialCapacity, 16);
+        ages = allocate(capacity * Integer.BYTES);
+        versions = allocate(capacity * Long.BYTES);
+        genders = allocate(capacity);
+        nameRefs = allocate(capacity * Long.BYTES);
+        emailRefs = allocate(capacity * Long.BYTES);
+        arena = allocate(capacity * 32);
+        slotsByEmailHash = new LongIntHashMap(capacity);
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        lock.readLock().lock();
+        try {
+            List<Customer> customers = new ArrayList<>(slots);
+            for (int slot = 0; slot < slots; slot++) {
+                if(isLive(slot)){
+                    customers.add(materialize(slot));
+                }
+            }
+            return customers;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Customer> selectCustomersAfter(long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Customer> customers = new ArrayList<>(limit);
+            for (long slot = Math.max(afterId, 0); slot < slots && customers.size() < limit; slot++) {
+                if(isLive((int) slot)){
+                    customers.add(materialize((int) slot));
+                }
+            }
+            return customers;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Customer> searchCustomers(CustomerSearch search, long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Customer> customers = new ArrayList<>();
+            for (long slot = Math.max(afterId, 0); slot < slots && customers.size() < limit; slot++) {
+                // age and gender are read straight from their columns, only
+                // candidates that pass them are decoded for the prefix checks
+                if(isLive((int) slot) && search.matchesAgeAndGender(
+                        ages.getInt((int) slot * Integer.BYTES),
+                        GENDERS[genders.get((int) slot) - 1])){
+                    Customer customer = materialize((int) slot);
+                    if(search.matches(customer)){
+                        customers.add(customer);
+                    }
+                }
+            }
+            return customers;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Customer> searchCustomersByName(String query, int offset, int limit) {
+        List<String> words = NameSearch.words(query);
+        record Match(int slot, double score) {
+        }
+        lock.readLock().lock();
+        try {
+            // only the name column is decoded while scoring
+            List<Match> matches = new ArrayList<>();
+            for (int slot = 0; slot < slots; slot++) {
+                if(isLive(slot)){
+                    String name = new String(read(nameRefs.getLong(slot * Long.BYTES)), StandardCharsets.UTF_8);
+                    double score = NameSearch.score(words, name);
+                    if(score >= NameSearch.WORD_SIMILARITY_THRESHOLD){
+                        matches.add(new Match(slot, score));
+                    }
+                }
+            }
+            return matches.stream()
+                    .sorted(Comparator.comparingDouble(Match::score).reversed()
+                            .thenComparingInt(Match::slot))
+                    .skip(offset)
+                    .limit(limit)
+                    .map(match -> materialize(match.slot()))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void streamAllCustomers(Consumer<Customer> consumer) {
+        // materialise one chunk under the read lock at a time so a slow consumer
+        // never blocks writers for the whole scan
+        long afterId = 0;
+        List<Customer> chunk;
+        do {
+            chunk = selectCustomersAfter(afterId, 1000);
+            chunk.forEach(consumer);
+            if(!chunk.isEmpty()){
+                afterId = chunk.get(chunk.size() - 1).getId();
+            }
+        } while (!chunk.isEmpty());
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long id) {
+        lock.readLock().lock();
+        try {
+            int slot = slotOf(id);
+            return slot < 0 ? Optional.empty() : Optional.of(materialize(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Long> selectCustomerVersion(Long id) {
+        lock.readLock().lock();
+        try {
+            int slot = slotOf(id);
+            return slot < 0 ? Optional.empty() : Optional.of(versions.getLong(slot * Long.BYTES));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long selectCustomersRevision() {
+        lock.readLock().lock();
+        try {
+            return revision;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        byte[] email = customer.getEmail().getBytes(StandardCharsets.UTF_8);
+        byte[] name = customer.getName().getBytes(StandardCharsets.UTF_8);
+        lock.writeLock().lock();
+        try {
+            if(slotOfEmail(customer.getEmail(), email) >= 0){
+                throw new DuplicateResourceException("email already taken");
+            }
+            if(slots == capacity){
+                grow();
+            }
+            int slot = slots++;
+            ages.putInt(slot * Integer.BYTES, customer.getAge());
+            versions.putLong(slot * Long.BYTES, 0);
+            genders.put(slot, (byte) (customer.getGender().ordinal() + 1));
+            nameRefs.putLong(slot * Long.BYTES, append(name));
+            emailRefs.putLong(slot * Long.BYTES, append(email));
+            indexEmail(customer.getEmail(), email, slot);
+            customer.setId(slot + 1L);
+            customer.setVersion(0L);
+            revision++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Boolean> insertCustomers(List<Customer> customers) {
+        List<Boolean> results = new ArrayList<>(customers.size());
+        for (Customer customer : customers) {
+            try {
+                insertCustomer(customer);
+                results.add(true);
+            } catch (DuplicateResourceException e) {
+                results.add(false);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public void deleteCustomerById(Long id) {
+        lock.writeLock().lock();
+        try {
+            int slot = slotOf(id);
+            if(slot < 0){
+                throw new ResourceNotFoundException("customer with id [%s] not found".formatted(id));
+            }
+            byte[] email = read(emailRefs.getLong(slot * Long.BYTES));
+            unindexEmail(new String(email, StandardCharsets.UTF_8), email, slot);
+            genders.put(slot, DELETED);
+            revision++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateCustomer(Customer update) {
+        if(update.getName() == null && update.getEmail() == null && update.getAge() == null){
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            int slot = slotOf(update.getId());
+            if(slot < 0){
+                throw new ResourceNotFoundException("customer with id [%s] not found".formatted(update.getId()));
+            }
+            long version = versions.getLong(slot * Long.BYTES);
+            if(update.getVersion() != null && update.getVersion() != version){
+                throw new StaleResourceException("customer with id [%s] was modified concurrently".formatted(update.getId()));
+            }
+            byte[] currentEmail = read(emailRefs.getLong(slot * Long.BYTES));
+            byte[] newEmail = update.getEmail() == null ? null : update.getEmail().getBytes(StandardCharsets.UTF_8);
+            boolean emailChanged = newEmail != null && !Arrays.equals(newEmail, currentEmail);
+            if(emailChanged && slotOfEmail(update.getEmail(), newEmail) >= 0){
+                throw new DuplicateResourceException("email already taken");
+            }
+            byte[] newName = update.getName() == null ? null : update.getName().getBytes(StandardCharsets.UTF_8);
+            boolean nameChanged = newName != null && !Arrays.equals(newName, read(nameRefs.getLong(slot * Long.BYTES)));
+            boolean ageChanged = update.getAge() != null && update.getAge() != ages.getInt(slot * Integer.BYTES);
+            if(!emailChanged && !nameChanged && !ageChanged){
+                throw new RequestValidationException("no data changes found");
+            }
+            if(nameChanged){
+                nameRefs.putLong(slot * Long.BYTES, append(newName));
+            }
+            if(ageChanged){
+                ages.putInt(slot * Integer.BYTES, update.getAge());
+            }
+            if(emailChanged){
+                unindexEmail(new String(currentEmail, StandardCharsets.UTF_8), currentEmail, slot);
+                emailRefs.putLong(slot * Long.BYTES, append(newEmail));
+                indexEmail(update.getEmail(), newEmail, slot);
+            }
+            versions.putLong(slot * Long.BYTES, version + 1);
+            revision++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Bytes held outside the heap by the columns and the arena.
+     */
+    public long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) ages.capacity() + versions.capacity() + genders.capacity()
+                    + nameRefs.capacity() + emailRefs.capacity() + arena.capacity();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int slotOf(Long id) {
+        if(id == null || id < 1 || id > slots){
+            return -1;
+        }
+        int slot = (int) (id - 1);
+        return isLive(slot) ? slot : -1;
+    }
+
+    private boolean isLive(int slot) {
+        return genders.get(slot) != DELETED;
+    }
+
+    private int slotOfEmail(String email, byte[] bytes) {
+        int slot = slotsByEmailHash.get(Hashing.hash64(bytes));
+        if(slot != LongIntHashMap.NO_VALUE && Arrays.equals(bytes, read(emailRefs.getLong(slot * Long.BYTES)))){
+            return slot;
+        }
+        return collidingEmails.getOrDefault(email, -1);
+    }
+
+    private void indexEmail(String email, byte[] bytes, int slot) {
+        if(slotsByEmailHash.putIfAbsent(Hashing.hash64(bytes), slot) != LongIntHashMap.NO_VALUE){
+            collidingEmails.put(email, slot);
+        }
+    }
+
+    private void unindexEmail(String email, byte[] bytes, int slot) {
+        if(!slotsByEmailHash.remove(Hashing.hash64(bytes), slot)){
+            collidingEmails.remove(email);
+        }
+    }
+
+    private Customer materialize(int slot) {
+        Customer customer = new Customer(
+                slot + 1L,
+                new String(read(nameRefs.getLong(slot * Long.BYTES)), StandardCharsets.UTF_8),
+                new String(read(emailRefs.getLong(slot * Long.BYTES)), StandardCharsets.UTF_8),
+                ages.getInt(slot * Integer.BYTES),
+                GENDERS[genders.get(slot) - 1]);
+        customer.setVersion(versions.getLong(slot * Long.BYTES));
+        return customer;
+    }
+
+    // references pack the arena offset in the high and the length in the low 32 bits
+    private long append(byte[] bytes) {
+        long required = arenaSize + (long) bytes.length;
+        if(required > arena.capacity()){
+            arena = copyOf(arena, grownArenaCapacity(arena.capacity(), required), arenaSize);
+        }
+        arena.put(arenaSize, bytes);
+        long reference = ((long) arenaSize << 32) | bytes.length;
+        arenaSize += bytes.length;
+        return reference;
+    }
+
+    // doubling stops at the largest buffer the JVM hands out instead of overflowing past 1 GiB
+    static int grownArenaCapacity(int capacity, long required) {
+        if(required > MAX_ARENA_SIZE){
+            throw new IllegalStateException("off-heap customer arena is full");
+        }
+        return (int) Math.min(Math.max((long) capacity * 2, required), MAX_ARENA_SIZE);
+    }
+
+    private byte[] read(long reference) {
+        byte[] bytes = new byte[(int) reference];
+        arena.get((int) (reference >>> 32), bytes);
+        return bytes;
+    }
+
+    private void grow() {
+        int newCapacity = Math.toIntExact(Math.min((long) capacity * 2, Integer.MAX_VALUE / Long.BYTES));
+        if(newCapacity == capacity){
+            throw new IllegalStateException("off-heap customer store is full");
+        }
+        ages = copyOf(ages, newCapacity * Integer.BYTES, slots * Integer.BYTES);
+        versions = copyOf(versions, newCapacity * Long.BYTES, slots * Long.BYTES);
+        genders = copyOf(genders, newCapacity, slots);
+        nameRefs = copyOf(nameRefs, newCapacity * Long.BYTES, slots * Long.BYTES);
+        emailRefs = copyOf(emailRefs, newCapacity * Long.BYTES, slots * Long.BYTES);
+        capacity = newCapacity;
+    }
+
+    private static ByteBuffer copyOf(ByteBuffer buffer, int capacity, int used) {
+        ByteBuffer copy = allocate(capacity);
+        copy.put(0, buffer, 0, used);
+        return copy;
+    }
+
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,233 @@
+package com.springapp.customer;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.springapp.customer.proto.CustomerProtos;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Reads and writes customers, lists of customers, registration requests and
+ * update requests as {@code application/x-protobuf}, using the messages of
+ * {@code customer.proto}. Unset fields map to null in both directions.
+ */
+public class CustomerProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+    public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+
+    public CustomerProtobufHttpMessageConverter() {
+        super(PROTOBUF);
+    }
+
+    /**
+     * Lists are accepted by raw class, which is all content negotiation knows
+     * of the value; the generic {@code canRead} and {@code canWrite} then check
+     * the element type.
+     */
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == Customer.class
+                || clazz == CustomerRegistrationRequest.class
+                || clazz == CustomerUpdateRequest.class
+                || List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return supports(type) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        return supports(type != null ? type : clazz) && canWrite(mediaType);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return read(clazz, null, inputMessage);
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage)
+            throws IOException {
+        ResolvableType resolved = ResolvableType.forType(type);
+        try {
+            if (isListOf(resolved, Customer.class)) {
+                return CustomerProtos.CustomerList.parseFrom(inputMessage.getBody())
+                        .getCustomersList()
+                        .stream()
+                        .map(CustomerProtobufHttpMessageConverter::fromProto)
+                        .toList();
+            }
+            if (isListOf(resolved, CustomerRegistrationRequest.class)) {
+                return CustomerProtos.CustomerRegistrationRequestList.parseFrom(inputMessage.getBody())
+                        .getRequestsList()
+                        .stream()
+                        .map(CustomerProtobufHttpMessageConverter::fromProto)
+                        .toList();
+            }
+            Class<?> clazz = resolved.resolve();
+            if (clazz == Customer.class) {
+                return fromProto(CustomerProtos.Customer.parseFrom(inputMessage.getBody()));
+            }
+            if (clazz == CustomerRegistrationRequest.class) {
+                return fromProto(CustomerProtos.CustomerRegistrationRequest.parseFrom(inputMessage.getBody()));
+            }
+            return fromProto(CustomerProtos.CustomerUpdateRequest.parseFrom(inputMessage.getBody()));
+        } catch (InvalidProtocolBufferException e) {
+            throw new HttpMessageNotReadableException("Invalid protobuf message: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object object, @Nullable Type type, HttpOutputMessage outputMessage)
+            throws IOException {
+        toProto(object).writeTo(outputMessage.getBody());
+    }
+
+    private static boolean supports(Type type) {
+        ResolvableType resolved = ResolvableType.forType(type);
+        Class<?> clazz = resolved.resolve();
+        return clazz == Customer.class
+                || clazz == CustomerRegistrationRequest.class
+                || clazz == CustomerUpdateRequest.class
+                || isListOf(resolved, Customer.class)
+                || isListOf(resolved, CustomerRegistrationRequest.class);
+    }
+
+    private static boolean isListOf(ResolvableType type, Class<?> element) {
+        return type.resolve() != null
+                && List.class.isAssignableFrom(type.resolve())
+                && type.asCollection().resolveGeneric(0) == element;
+    }
+
+    private static com.google.protobuf.Message toProto(Object object) {
+        if (object instanceof Customer customer) {
+            return toProto(customer);
+        }
+        if (object instanceof CustomerRegistrationRequest request) {
+            return toProto(request);
+        }
+        if (object instanceof CustomerUpdateRequest request) {
+            return toProto(request);
+        }
+        List<?> list = (List<?>) object;
+        // an empty list carries no element type, and both list messages encode it as zero bytes
+        if (list.isEmpty() || list.get(0) instanceof Customer) {
+            CustomerProtos.CustomerList.Builder builder = CustomerProtos.CustomerList.newBuilder();
+            list.forEach(customer -> builder.addCustomers(toProto((Customer) customer)));
+            return builder.build();
+        }
+        CustomerProtos.CustomerRegistrationRequestList.Builder builder =
+                CustomerProtos.CustomerRegistrationRequestList.newBuilder();
+        list.forEach(request -> builder.addRequests(toProto((CustomerRegistrationRequest) request)));
+        return builder.build();
+    }
+
+    static CustomerProtos.Customer toProto(Customer customer) {
+        CustomerProtos.Customer.Builder builder = CustomerProtos.Customer.newBuilder();
+        if (customer.getId() != null) {
+            builder.setId(customer.getId());
+        }
+        if (customer.getName() != null) {
+            builder.setName(customer.getName());
+        }
+        if (customer.getEmail() != null) {
+            builder.setEmail(customer.getEmail());
+        }
+        if (customer.getAge() != null) {
+            builder.setAge(customer.getAge());
+        }
+        if (customer.getGender() != null) {
+            builder.setGender(toProto(customer.getGender()));
+        }
+        if (customer.getVersion() != null) {
+            builder.setVersion(customer.getVersion());
+        }
+        return builder.build();
+    }
+
+    static Customer fromProto(CustomerProtos.Customer message) {
+        Customer customer = new Customer(
+                message.hasId() ? message.getId() : null,
+                message.hasName() ? message.getName() : null,
+                message.hasEmail() ? message.getEmail() : null,
+                message.hasAge() ? message.getAge() : null,
+                message.hasGender() ? fromProto(message.getGender()) : null);
+        customer.setVersion(message.hasVersion() ? message.getVersion() : null);
+        return customer;
+    }
+
+    static CustomerProtos.CustomerRegistrationRequest toProto(CustomerRegistrationRequest request) {
+        CustomerProtos.CustomerRegistrationRequest.Builder builder =
+                CustomerProtos.CustomerRegistrationRequest.newBuilder();
+        if (request.name() != null) {
+            builder.setName(request.name());
+        }
+        if (request.email() != null) {
+            builder.setEmail(request.email());
+        }
+        if (request.age() != null) {
+            builder.setAge(request.age());
+        }
+        if (request.gender() != null) {
+            builder.setGender(toProto(request.gender()));
+        }
+        return builder.build();
+    }
+
+    static CustomerRegistrationRequest fromProto(CustomerProtos.CustomerRegistrationRequest message) {
+        return new CustomerRegistrationRequest(
+                message.hasName() ? message.getName() : null,
+                message.hasEmail() ? message.getEmail() : null,
+                message.hasAge() ? message.getAge() : null,
+                message.hasGender() ? fromProto(message.getGender()) : null);
+    }
+
+    static CustomerProtos.CustomerUpdateRequest toProto(CustomerUpdateRequest request) {
+        CustomerProtos.CustomerUpdateRequest.Builder builder = CustomerProtos.CustomerUpdateRequest.newBuilder();
+        if (request.name() != null) {
+            builder.setName(request.name());
+        }
+        if (request.email() != null) {
+            builder.setEmail(request.email());
+        }
+        if (request.age() != null) {
+            builder.setAge(request.age());
+        }
+        if (request.version() != null) {
+            builder.setVersion(request.version());
+        }
+        return builder.build();
+    }
+
+    static CustomerUpdateRequest fromProto(CustomerProtos.CustomerUpdateRequest message) {
+        return new CustomerUpdateRequest(
+                message.hasName() ? message.getName() : null,
+                message.hasEmail() ? message.getEmail() : null,
+                message.hasAge() ? message.getAge() : null,
+                message.hasVersion() ? message.getVersion() : null);
+    }
+
+    private static CustomerProtos.Gender toProto(Gender gender) {
+        return switch (gender) {
+            case MALE -> CustomerProtos.Gender.MALE;
+            case FEMALE -> CustomerProtos.Gender.FEMALE;
+        };
+    }
+
+    private static Gender fromProto(CustomerProtos.Gender gender) {
+        return switch (gender) {
+            case MALE -> Gender.MALE;
+            case FEMALE -> Gender.FEMALE;
+            case GENDER_UNSPECIFIED, UNRECOGNIZED -> null;
+        };
+    }
+}
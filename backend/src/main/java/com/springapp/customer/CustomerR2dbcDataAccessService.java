@@ -0,0 +1,213 @@
+package com.springapp.customer;
+
+import com.springapp.exception.DuplicateResourceException;
+import com.springapp.exception.RequestValidationException;
+import com.springapp.exception.ResourceNotFoundException;
+import com.springapp.exception.StaleResourceException;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking counterpart of {@link CustomerJDBCDataAccessService}. Every write
+ * is a single statement, so no reactive transaction manager is needed.
+ */
+@Repository("r2dbc")
+@Profile("reactive")
+public class CustomerR2dbcDataAccessService implements ReactiveCustomerDao {
+
+    private final DatabaseClient databaseClient;
+    @Value("${customer.export.fetch-size:1000}")
+    private int exportFetchSize = 1000;
+
+    public CustomerR2dbcDataAccessService(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Rows are pulled from the server {@code exportFetchSize} at a time as the
+     * subscriber requests them, so a slow client holds back the query instead of
+     * the whole table piling up in memory.
+     */
+    @Override
+    public Flux<Customer> selectAllCustomers() {
+        var sql = """
+                SELECT id,name,email,age,gender,version FROM customer
+                """;
+        return databaseClient.sql(sql)
+                .filter(statement -> statement.fetchSize(exportFetchSize))
+                .map(CustomerR2dbcDataAccessService::toCustomer)
+                .all();
+    }
+
+    @Override
+    public Flux<Customer> selectCustomersAfter(long afterId, int limit) {
+        var sql = """
+                SELECT id,name,email,age,gender,version FROM customer
+                WHERE id > :afterId
+                ORDER BY id
+                LIMIT :limit
+                """;
+        return databaseClient.sql(sql)
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(CustomerR2dbcDataAccessService::toCustomer)
+                .all();
+    }
+
+    @Override
+    public Mono<Customer> selectCustomerById(Long id) {
+        var sql = """
+                SELECT id,name,email,age,gender,version FROM customer
+                WHERE id = :id
+                """;
+        return databaseClient.sql(sql)
+                .bind("id", id)
+                .map(CustomerR2dbcDataAccessService::toCustomer)
+                .one();
+    }
+
+    @Override
+    public Mono<Boolean> insertCustomer(Customer customer) {
+        var sql = """
+                INSERT INTO customer(name,email,age,gender)
+                VALUES (:name,:email,:age,:gender)
+                ON CONFLICT (email) DO NOTHING
+                """;
+        return databaseClient.sql(sql)
+                .bind("name", customer.getName())
+                .bind("email", customer.getEmail())
+                .bind("age", customer.getAge())
+                .bind("gender", customer.getGender().name())
+                .fetch()
+                .rowsUpdated()
+                .map(count -> count > 0);
+    }
+
+    /**
+     * Inserts all customers with one statement over unnested arrays. Emails that
+     * are already taken are dropped by ON CONFLICT and are missing from the
+     * returned rows.
+     */
+    @Override
+    public Mono<List<Boolean>> insertCustomers(List<Customer> customers) {
+        if(customers.isEmpty()){
+            return Mono.just(List.of());
+        }
+        var sql = """
+                INSERT INTO customer(name,email,age,gender)
+                SELECT * FROM unnest(
+                    CAST(:names AS text[]),
+                    CAST(:emails AS text[]),
+                    CAST(:ages AS int[]),
+                    CAST(:genders AS text[]))
+                ON CONFLICT (email) DO NOTHING
+                RETURNING email
+                """;
+        return databaseClient.sql(sql)
+                .bind("names", customers.stream().map(Customer::getName).toArray(String[]::new))
+                .bind("emails", customers.stream().map(Customer::getEmail).toArray(String[]::new))
+                .bind("ages", customers.stream().map(Customer::getAge).toArray(Integer[]::new))
+                .bind("genders", customers.stream().map(c -> c.getGender().name()).toArray(String[]::new))
+                .map(row -> row.get("email", String.class))
+                .all()
+                .collect(Collectors.toSet())
+                .map(inserted -> customers.stream()
+                        .map(c -> inserted.contains(c.getEmail()))
+                        .toList());
+    }
+
+    @Override
+    public Mono<Boolean> deleteCustomerById(Long id) {
+        var sql = """
+                DELETE FROM customer
+                WHERE id = :id
+                """;
+        return databaseClient.sql(sql)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated()
+                .map(count -> count > 0);
+    }
+
+    /**
+     * Same conditional write as {@link CustomerJDBCDataAccessService#updateCustomer},
+     * failing with the same exceptions.
+     */
+    @Override
+    public Mono<Void> updateCustomer(Customer update) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        if(update.getName() != null){
+            values.put("name", update.getName());
+        }
+        if(update.getEmail() != null){
+            values.put("email", update.getEmail());
+        }
+        if(update.getAge() != null){
+            values.put("age", update.getAge());
+        }
+        if(values.isEmpty()){
+            return Mono.empty();
+        }
+        Set<String> columns = values.keySet();
+        var sql = """
+                UPDATE customer SET %s, version = version + 1
+                WHERE id = :id %s
+                AND (%s) IS DISTINCT FROM (%s)
+                """.formatted(
+                columns.stream().map(c -> c + " = :" + c).collect(Collectors.joining(", ")),
+                update.getVersion() != null ? "AND version = :version" : "",
+                String.join(", ", columns),
+                columns.stream().map(c -> ":" + c).collect(Collectors.joining(", "))
+        );
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql).bind("id", update.getId());
+        if(update.getVersion() != null){
+            spec = spec.bind("version", update.getVersion());
+        }
+        for (Map.Entry<String, Object> value : values.entrySet()) {
+            spec = spec.bind(value.getKey(), value.getValue());
+        }
+        return spec.fetch()
+                .rowsUpdated()
+                .onErrorMap(DuplicateKeyException.class, e -> new DuplicateResourceException("email already taken"))
+                .flatMap(count -> count > 0 ? Mono.empty() : updateFailure(update));
+    }
+
+    private Mono<Void> updateFailure(Customer update) {
+        var sql = """
+                SELECT version FROM customer
+                WHERE id = :id
+                """;
+        return databaseClient.sql(sql)
+                .bind("id", update.getId())
+                .map(row -> row.get("version", Long.class))
+                .one()
+                .<RuntimeException>map(version -> update.getVersion() != null && !update.getVersion().equals(version)
+                        ? new StaleResourceException("customer with id [%s] was modified concurrently".formatted(update.getId()))
+                        : new RequestValidationException("no data changes found"))
+                .defaultIfEmpty(new ResourceNotFoundException("customer with id [%s] not found".formatted(update.getId())))
+                .flatMap(Mono::error);
+    }
+
+    private static Customer toCustomer(Readable row) {
+        Customer customer = new Customer(
+                row.get("id", Long.class),
+                row.get("name", String.class),
+                row.get("email", String.class),
+                row.get("age", Integer.class),
+                Gender.valueOf(row.get("gender", String.class)));
+        customer.setVersion(row.get("version", Long.class));
+        return customer;
+    }
+}
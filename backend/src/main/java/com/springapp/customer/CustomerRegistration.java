@@ -0,0 +1,14 @@
+package com.springapp.customer;
+
+public record CustomerRegistration(
+        String id,
+        String email,
+        Status status
+){
+    public enum Status {
+        QUEUED,
+        CREATED,
+        DUPLICATE_EMAIL,
+        FAILED
+    }
+}
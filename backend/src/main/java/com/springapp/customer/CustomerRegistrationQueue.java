@@ -0,0 +1,208 @@
+package com.springapp.customer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.springapp.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes registrations into a bounded queue and writes them behind the
+ * request. A single flusher takes whatever is queued, up to
+ * {@code batchSize}, and inserts it with one {@link CustomerDao#insertCustomers}
+ * call, so batches grow with the load while a lone registration is written as
+ * soon as it arrives. A full queue rejects the registration instead of
+ * blocking the request thread.
+ * <p>
+ * The outcome of every registration is kept for polling in a bounded cache
+ * that expires it after {@code statusExpireAfter}. The queue starts before
+ * and stops after the web server, so once it stops nothing new can arrive and
+ * the flusher drains what is left before the data source closes.
+ */
+public class CustomerRegistrationQueue implements SmartLifecycle {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CustomerRegistrationQueue.class);
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    private final CustomerDao customerDao;
+    private final BlockingQueue<Queued> queue;
+    private final Cache<String, CustomerRegistration> registrations;
+    private final int batchSize;
+    private final Duration shutdownTimeout;
+    private final Counter created;
+    private final Counter duplicates;
+    private final Counter failed;
+    private final Counter rejected;
+    private final DistributionSummary batches;
+    private volatile boolean running;
+    private Thread flusher;
+
+    public CustomerRegistrationQueue(CustomerDao customerDao,
+                                     int capacity,
+                                     int batchSize,
+                                     long statusMaximumSize,
+                                     Duration statusExpireAfter,
+                                     Duration shutdownTimeout,
+                                     MeterRegistry meterRegistry) {
+        this.customerDao = customerDao;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.registrations = Caffeine.newBuilder()
+                .maximumSize(statusMaximumSize)
+                .expireAfterWrite(statusExpireAfter)
+                .build();
+        this.batchSize = batchSize;
+        this.shutdownTimeout = shutdownTimeout;
+        this.created = registrations(meterRegistry, "created");
+        this.duplicates = registrations(meterRegistry, "duplicate_email");
+        this.failed = registrations(meterRegistry, "failed");
+        this.rejected = registrations(meterRegistry, "rejected");
+        this.batches = DistributionSummary.builder("customer.registration.batch.size")
+                .description("registrations written per insert")
+                .register(meterRegistry);
+        Gauge.builder("customer.registration.queue.size", queue, BlockingQueue::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Validates the registration and queues it.
+     *
+     * @return the registration in state {@code QUEUED}, whose id can be polled
+     * @throws TooManyRequestsException when the queue is full or stopped
+     */
+    public CustomerRegistration enqueue(CustomerRegistrationRequest request) {
+        Customer customer = request.toCustomer();
+        CustomerRegistration registration = new CustomerRegistration(
+                UUID.randomUUID().toString(),
+                request.email(),
+                CustomerRegistration.Status.QUEUED);
+        // recorded before the flusher can see it, so its outcome is never overwritten
+        registrations.put(registration.id(), registration);
+        if(!running || !queue.offer(new Queued(registration, customer))){
+            registrations.invalidate(registration.id());
+            rejected.increment();
+            throw new TooManyRequestsException(running
+                    ? "registration queue is full"
+                    : "registration queue is stopped");
+        }
+        return registration;
+    }
+
+    public Optional<CustomerRegistration> registration(String id) {
+        return Optional.ofNullable(registrations.getIfPresent(id));
+    }
+
+    private void flush() {
+        List<Queued> batch = new ArrayList<>(batchSize);
+        while(running || !queue.isEmpty()){
+            Queued first;
+            try {
+                first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if(first == null){
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<Queued> batch) {
+        batches.record(batch.size());
+        List<Queued> candidates = new ArrayList<>(batch.size());
+        Set<String> emails = new HashSet<>();
+        for (Queued queued : batch) {
+            if(emails.add(queued.customer().getEmail())){
+                candidates.add(queued);
+            } else {
+                complete(queued, CustomerRegistration.Status.DUPLICATE_EMAIL);
+            }
+        }
+        List<Boolean> inserted;
+        try {
+            inserted = customerDao.insertCustomers(candidates.stream().map(Queued::customer).toList());
+        } catch (RuntimeException e) {
+            LOGGER.warn("failed to write {} queued registrations", candidates.size(), e);
+            candidates.forEach(queued -> complete(queued, CustomerRegistration.Status.FAILED));
+            return;
+        }
+        for (int i = 0; i < candidates.size(); i++) {
+            complete(candidates.get(i), inserted.get(i)
+                    ? CustomerRegistration.Status.CREATED
+                    : CustomerRegistration.Status.DUPLICATE_EMAIL);
+        }
+    }
+
+    private void complete(Queued queued, CustomerRegistration.Status status) {
+        registrations.put(queued.registration().id(), new CustomerRegistration(
+                queued.registration().id(),
+                queued.registration().email(),
+                status));
+        switch (status) {
+            case CREATED -> created.increment();
+            case DUPLICATE_EMAIL -> duplicates.increment();
+            default -> failed.increment();
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        flusher = new Thread(this::flush, "customer-registration-flusher");
+        flusher.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            flusher.join(shutdownTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if(flusher.isAlive()){
+            LOGGER.warn("gave up draining the registration queue after {}, {} registrations not written",
+                    shutdownTimeout, queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Below the phase of the web server, which therefore stops taking requests first.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private static Counter registrations(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("customer.registrations")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record Queued(CustomerRegistration registration, Customer customer) {
+    }
+}
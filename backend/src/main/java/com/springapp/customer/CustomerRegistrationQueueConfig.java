@@ -0,0 +1,41 @@
+package com.springapp.customer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.time.Duration;
+
+/**
+ * Answers {@code POST /api/v1/customers} with {@code 202 Accepted} and writes
+ * the registration behind the request when
+ * {@code customer.registration.async.enabled} is set.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "customer.registration.async.enabled", havingValue = "true")
+public class CustomerRegistrationQueueConfig {
+
+    @Bean
+    public CustomerRegistrationQueue customerRegistrationQueue(
+            @Qualifier("customerDao") CustomerDao customerDao,
+            MeterRegistry meterRegistry,
+            @Value("${customer.registration.async.queue-capacity:10000}") int queueCapacity,
+            @Value("${customer.registration.async.batch-size:500}") int batchSize,
+            @Value("${customer.registration.async.status-maximum-size:100000}") long statusMaximumSize,
+            @Value("${customer.registration.async.status-expire-after:1h}") Duration statusExpireAfter,
+            @Value("${customer.registration.async.shutdown-timeout:30s}") Duration shutdownTimeout) {
+        return new CustomerRegistrationQueue(
+                customerDao,
+                queueCapacity,
+                batchSize,
+                statusMaximumSize,
+                statusExpireAfter,
+                shutdownTimeout,
+                meterRegistry);
+    }
+}
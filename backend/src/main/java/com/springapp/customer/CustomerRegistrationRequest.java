@@ -1,8 +1,30 @@
 package com.springapp.customer;
 
+import com.springapp.exception.RequestValidationException;
+
 public record CustomerRegistrationRequest(
         String name,
         String email,
         Integer age,
         Gender gender
-){}
+){
+    /**
+     * Whether every field a new customer needs is present.
+     */
+    boolean isComplete(){
+        return name != null && email != null && age != null && gender != null;
+    }
+
+    /**
+     * The customer to insert, shared by every registration path so they all
+     * accept the same requests.
+     *
+     * @throws RequestValidationException when a field is missing
+     */
+    Customer toCustomer(){
+        if(!isComplete()){
+            throw new RequestValidationException("name, email, age and gender are required");
+        }
+        return new Customer(name, email, age, gender);
+    }
+}
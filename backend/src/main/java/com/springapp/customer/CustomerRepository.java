@@ -1,9 +1,63 @@
 package com.springapp.customer;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface CustomerRepository extends JpaRepository<Customer,Long> {
-    boolean existsCustomerByEmail(String email);
-    boolean existsCustomerById(Long id);
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public interface CustomerRepository extends JpaRepository<Customer,Long>, CustomerSearchRepository {
+    @Query("""
+            SELECT new com.springapp.customer.CustomerView(c.id, c.name, c.email, c.age, c.gender, c.version)
+            FROM Customer c
+            """)
+    List<CustomerView> findAllViews();
+    @Query("""
+            SELECT new com.springapp.customer.CustomerView(c.id, c.name, c.email, c.age, c.gender, c.version)
+            FROM Customer c WHERE c.id > :id ORDER BY c.id
+            """)
+    List<CustomerView> findViewsByIdGreaterThan(Long id, Pageable pageable);
+    /**
+     * Streams every customer from a server-side cursor. The stream has to be
+     * consumed and closed inside a transaction.
+     */
+    @Query("""
+            SELECT new com.springapp.customer.CustomerView(c.id, c.name, c.email, c.age, c.gender, c.version)
+            FROM Customer c
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<CustomerView> streamAllViews();
+    @Query("SELECT c.version FROM Customer c WHERE c.id = :id")
+    Optional<Long> findVersionById(Long id);
+    @Query(nativeQuery = true, value = "SELECT CAST(sum(revision) AS BIGINT) FROM customer_revision")
+    long findRevision();
+    @Transactional
+    @Query(nativeQuery = true, value = """
+            INSERT INTO customer(name,email,age,gender)
+            VALUES (:name, :email, :age, :gender)
+            ON CONFLICT (email) DO NOTHING
+            RETURNING id
+            """)
+    Optional<Long> insertIfEmailAbsent(String name, String email, int age, String gender);
+    @Transactional
+    @Query(nativeQuery = true, value = "DELETE FROM customer WHERE id = :id RETURNING id")
+    Optional<Long> deleteReturningId(Long id);
+    @Query("SELECT c.email FROM Customer c WHERE c.email IN :emails")
+    Set<String> findExistingEmails(Collection<String> emails);
+    @Query(nativeQuery = true, value = """
+            SELECT id,name,email,age,gender,version FROM customer
+            WHERE name_search @@ to_tsquery('simple', :tsQuery) OR :query <% name
+            ORDER BY ts_rank(name_search, to_tsquery('simple', :tsQuery)) + word_similarity(:query, name) DESC, id
+            LIMIT :limit OFFSET :offset
+            """)
+    List<Customer> searchByName(String query, String tsQuery, int offset, int limit);
 
 }
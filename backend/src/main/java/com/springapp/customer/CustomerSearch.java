@@ -0,0 +1,42 @@
+package com.springapp.customer;
+
+import java.util.Locale;
+
+/**
+ * Filters of a customer search. A null field does not filter; the age bounds
+ * are inclusive and the name and email prefixes match case-insensitively.
+ */
+public record CustomerSearch(
+        Integer minAge,
+        Integer maxAge,
+        Gender gender,
+        String namePrefix,
+        String emailPrefix
+) {
+    /**
+     * The LIKE pattern for a prefix: lower-cased, with LIKE wildcards escaped
+     * by a backslash, followed by {@code %}.
+     */
+    static String likePattern(String prefix) {
+        return prefix.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+    }
+
+    boolean matchesAgeAndGender(int age, Gender gender) {
+        return (minAge == null || age >= minAge)
+                && (maxAge == null || age <= maxAge)
+                && (this.gender == null || this.gender == gender);
+    }
+
+    boolean matches(Customer customer) {
+        return matchesAgeAndGender(customer.getAge(), customer.getGender())
+                && startsWith(customer.getName(), namePrefix)
+                && startsWith(customer.getEmail(), emailPrefix);
+    }
+
+    private static boolean startsWith(String value, String prefix) {
+        return prefix == null || value.toLowerCase(Locale.ROOT).startsWith(prefix.toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,7 @@
+package com.springapp.customer;
+
+import java.util.List;
+
+public interface CustomerSearchRepository {
+    List<Customer> search(CustomerSearch search, long afterId, int limit);
+}
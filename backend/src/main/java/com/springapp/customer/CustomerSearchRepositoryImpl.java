@@ -0,0 +1,55 @@
+package com.springapp.customer;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Criteria query behind {@link CustomerSearchRepository}: one bound predicate
+ * per filter, so Hibernate emits the same SQL shape as the JDBC search, and a
+ * plain row limit instead of a {@code Page} that would also issue a count.
+ */
+class CustomerSearchRepositoryImpl implements CustomerSearchRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Customer> search(CustomerSearch search, long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Customer> query = cb.createQuery(Customer.class);
+        Root<Customer> customer = query.from(Customer.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.greaterThan(customer.<Long>get("id"), afterId));
+        if(search.minAge() != null){
+            predicates.add(cb.greaterThanOrEqualTo(customer.<Integer>get("age"), search.minAge()));
+        }
+        if(search.maxAge() != null){
+            predicates.add(cb.lessThanOrEqualTo(customer.<Integer>get("age"), search.maxAge()));
+        }
+        if(search.gender() != null){
+            predicates.add(cb.equal(customer.get("gender"), search.gender()));
+        }
+        if(search.namePrefix() != null){
+            predicates.add(cb.like(
+                    cb.lower(customer.<String>get("name")), CustomerSearch.likePattern(search.namePrefix()), '\\'));
+        }
+        if(search.emailPrefix() != null){
+            predicates.add(cb.like(
+                    cb.lower(customer.<String>get("email")), CustomerSearch.likePattern(search.emailPrefix()), '\\'));
+        }
+
+        query.select(customer)
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.asc(customer.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
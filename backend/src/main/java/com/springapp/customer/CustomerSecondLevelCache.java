@@ -0,0 +1,43 @@
+package com.springapp.customer;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Drops what Hibernate's second-level cache holds about a customer after it
+ * is written behind Hibernate's back: by the JDBC DAO or by native queries of
+ * the JPA DAO. Inside a transaction the eviction waits
+ * for the commit, so a concurrent reader cannot cache the old row again in
+ * between. A reader that loaded the old row before the commit can still put
+ * it back; the region's time to live bounds how long that lasts.
+ */
+public class CustomerSecondLevelCache {
+    /**
+     * The region of the {@link Customer} entity.
+     */
+    public static final String REGION = "customer";
+    private final SessionFactory sessionFactory;
+
+    public CustomerSecondLevelCache(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    public void evict(Long id) {
+        afterCommit(() -> sessionFactory.getCache().evictEntityData(Customer.class, id));
+    }
+
+    private static void afterCommit(Runnable eviction) {
+        if(!TransactionSynchronizationManager.isSynchronizationActive()){
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+}
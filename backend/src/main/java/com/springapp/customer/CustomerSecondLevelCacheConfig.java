@@ -0,0 +1,108 @@
+package com.springapp.customer;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Turns on Hibernate's second-level cache for {@link Customer} when
+ * {@code customer.second-level-cache.enabled} is set. The region lives in an
+ * in-process Caffeine JCache, bounded by size and time to live, and is created
+ * here so Hibernate fails to start rather than silently creating an unbounded one.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "customer.second-level-cache.enabled", havingValue = "true")
+public class CustomerSecondLevelCacheConfig {
+    @Value("${customer.second-level-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${customer.second-level-cache.expire-after-write:10m}")
+    private Duration expireAfterWrite;
+
+    /**
+     * A cache manager of its own, under a unique URI, so every application
+     * context creates its regions afresh.
+     */
+    @Bean
+    public CacheManager customerCacheManager() {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(
+                        URI.create("customer-second-level-cache-" + UUID.randomUUID()),
+                        getClass().getClassLoader());
+        cacheManager.createCache(
+                CustomerSecondLevelCache.REGION,
+                configuration(OptionalLong.of(maximumSize), OptionalLong.of(expireAfterWrite.toNanos())));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer customerSecondLevelCacheProperties(CacheManager customerCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, customerCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+
+    @Bean
+    public CustomerSecondLevelCache customerSecondLevelCache(EntityManagerFactory entityManagerFactory) {
+        return new CustomerSecondLevelCache(entityManagerFactory);
+    }
+
+    @Bean
+    public CustomerCacheStatisticsEndpoint customerCacheStatisticsEndpoint(
+            EntityManagerFactory entityManagerFactory,
+            CacheManager customerCacheManager) {
+        return new CustomerCacheStatisticsEndpoint(entityManagerFactory, customerCacheManager);
+    }
+
+    /**
+     * Publishes size, hits, misses and evictions of the region as the
+     * {@code cache.*} meters, tagged with the region name.
+     */
+    @Bean
+    public MeterBinder customerSecondLevelCacheMetrics(CacheManager customerCacheManager) {
+        return registry -> CaffeineCacheMetrics.monitor(
+                registry,
+                caffeineCache(customerCacheManager, CustomerSecondLevelCache.REGION),
+                CustomerSecondLevelCache.REGION);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static com.github.benmanes.caffeine.cache.Cache<Object, Object> caffeineCache(
+            CacheManager customerCacheManager, String region) {
+        // the JCache API only hands the native cache back as a raw type
+        return customerCacheManager.getCache(region).unwrap(com.github.benmanes.caffeine.cache.Cache.class);
+    }
+
+    private static CaffeineConfiguration<Object, Object> configuration(OptionalLong maximumSize,
+                                                                       OptionalLong expireAfterWriteNanos) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(maximumSize);
+        configuration.setExpireAfterWrite(expireAfterWriteNanos);
+        // Hibernate caches disassembled state it never mutates, so the copies are not needed
+        configuration.setStoreByValue(false);
+        configuration.setNativeStatisticsEnabled(true);
+        return configuration;
+    }
+}
@@ -1,66 +1,152 @@
 package com.springapp.customer;
 
-import com.springapp.exception.DuplicateResourceException;
 import com.springapp.exception.RequestValidationException;
 import com.springapp.exception.ResourceNotFoundException;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
+@Profile("!reactive")
 public class CustomerService {
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int MAX_BATCH_SIZE = 10_000;
+    static final int MAX_SEARCH_OFFSET = 10_000;
+    static final int MIN_SEARCH_WORD_LENGTH = 3;
     private final CustomerDao customerDao;
 
-    public CustomerService(@Qualifier("jdbc") CustomerDao customerDao) {
+    public CustomerService(@Qualifier("customerDao") CustomerDao customerDao) {
         this.customerDao = customerDao;
     }
 
     public List<Customer> getAllCustomers(){
     return customerDao.selectAllCustomers();
     }
+    public CustomerPage getCustomers(Long after, int limit){
+        checkPageLimit(limit);
+        // fetch one extra row to know whether another page exists
+        return page(customerDao.selectCustomersAfter(after == null ? 0 : after, limit + 1), limit);
+    }
+    public CustomerPage searchCustomers(CustomerSearch search, Long after, int limit){
+        checkPageLimit(limit);
+        if(search.minAge() != null && search.maxAge() != null && search.minAge() > search.maxAge()){
+            throw new RequestValidationException("minAge must not be greater than maxAge");
+        }
+        return page(customerDao.searchCustomers(search, after == null ? 0 : after, limit + 1), limit);
+    }
+    /**
+     * Ranked matches of a partial or misspelled name. Ranks are not stable
+     * keys, so pages are offsets and the cursor of the page is the next offset.
+     */
+    public CustomerPage searchCustomersByName(String query, int offset, int limit){
+        checkPageLimit(limit);
+        if(offset < 0 || offset > MAX_SEARCH_OFFSET){
+            throw new RequestValidationException("offset must be between 0 and %s".formatted(MAX_SEARCH_OFFSET));
+        }
+        List<String> words = query == null ? List.of() : NameSearch.words(query);
+        if(words.isEmpty()){
+            throw new RequestValidationException("query must contain a letter or a digit");
+        }
+        // a word of one or two characters matches most names, all of which get ranked
+        if(words.stream().allMatch(word -> word.length() < MIN_SEARCH_WORD_LENGTH)){
+            throw new RequestValidationException("query must contain a word of at least %s letters or digits"
+                    .formatted(MIN_SEARCH_WORD_LENGTH));
+        }
+        List<Customer> customers = customerDao.searchCustomersByName(query, offset, limit + 1);
+        if(customers.size() <= limit){
+            return new CustomerPage(customers, null);
+        }
+        return new CustomerPage(customers.subList(0, limit), (long) offset + limit);
+    }
+    /**
+     * Also called by the controller, which has to reject a bad limit before it
+     * answers a conditional request from the revision alone.
+     */
+    static void checkPageLimit(int limit){
+        if(limit < 1 || limit > MAX_PAGE_SIZE){
+            throw new RequestValidationException("limit must be between 1 and %s".formatted(MAX_PAGE_SIZE));
+        }
+    }
+    static CustomerPage page(List<Customer> customers, int limit){
+        if(customers.size() <= limit){
+            return new CustomerPage(customers, null);
+        }
+        List<Customer> page = customers.subList(0, limit);
+        return new CustomerPage(page, page.get(limit - 1).getId());
+    }
+    public void exportCustomers(Consumer<Customer> consumer){
+        customerDao.streamAllCustomers(consumer);
+    }
     public Customer getCustomerById(Long id){
        return customerDao.selectCustomerById(id)
                 .orElseThrow(()->new ResourceNotFoundException("customer with id [%s] not found".formatted(id)));
     }
+    public long getCustomerVersion(Long id){
+        return customerDao.selectCustomerVersion(id)
+                .orElseThrow(()->new ResourceNotFoundException("customer with id [%s] not found".formatted(id)));
+    }
+    public long getCustomersRevision(){
+        return customerDao.selectCustomersRevision();
+    }
     public void addCustomer(CustomerRegistrationRequest customerRegistrationRequest){
-        if(customerDao.existsCustomerWithEmail(customerRegistrationRequest.email())){
-             throw new DuplicateResourceException("email already taken");
+        // the dao rejects a taken email in the insert itself
+        customerDao.insertCustomer(customerRegistrationRequest.toCustomer());
+    }
+    public List<CustomerBatchResult> addCustomers(List<CustomerRegistrationRequest> requests){
+        if(requests.size() > MAX_BATCH_SIZE){
+            throw new RequestValidationException("batch must not exceed %s customers".formatted(MAX_BATCH_SIZE));
         }
-        Customer customer = new Customer(
-                customerRegistrationRequest.name(),
-                customerRegistrationRequest.email(),
-                customerRegistrationRequest.age(),
-                Gender.MALE);
-        customerDao.insertCustomer(customer);
+        CustomerBatchResult[] results = new CustomerBatchResult[requests.size()];
+        List<Integer> positions = new ArrayList<>();
+        List<Customer> customers = new ArrayList<>();
+        Set<String> emails = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            CustomerRegistrationRequest request = requests.get(i);
+            if(request == null){
+                results[i] = new CustomerBatchResult(i, null, CustomerBatchResult.Status.INVALID);
+            } else if(!request.isComplete()){
+                results[i] = new CustomerBatchResult(i, request.email(), CustomerBatchResult.Status.INVALID);
+            } else if(!emails.add(request.email())){
+                results[i] = new CustomerBatchResult(i, request.email(), CustomerBatchResult.Status.DUPLICATE_EMAIL);
+            } else {
+                positions.add(i);
+                customers.add(request.toCustomer());
+            }
+        }
+        if(!customers.isEmpty()){
+            List<Boolean> inserted = customerDao.insertCustomers(customers);
+            for (int i = 0; i < positions.size(); i++) {
+                int position = positions.get(i);
+                results[position] = new CustomerBatchResult(
+                        position,
+                        customers.get(i).getEmail(),
+                        inserted.get(i) ? CustomerBatchResult.Status.CREATED : CustomerBatchResult.Status.DUPLICATE_EMAIL);
+            }
+        }
+        return List.of(results);
     }
     public void deleteCustomerById(Long id){
-        if(!customerDao.existsCustomerById(id)){
-            throw new ResourceNotFoundException("customer with id [%s] not found".formatted(id));
-        }
+        // the dao reports a missing customer from the delete itself
         customerDao.deleteCustomerById(id);
     }
     public void updateCustomer(Long customerId, CustomerUpdateRequest updateRequest){
-        Customer customer = getCustomerById(customerId);
-        boolean changes = false;
-        if (updateRequest.name() != null && !updateRequest.name().equals(customer.getName())){
-            customer.setName(updateRequest.name());
-            changes = true;
-        }
-        if (updateRequest.age() != null && !updateRequest.age().equals(customer.getAge())){
-            customer.setAge(updateRequest.age());
-            changes = true;
-        }
-        if (updateRequest.email() != null && !updateRequest.email().equals(customer.getEmail())){
-            if(customerDao.existsCustomerWithEmail(updateRequest.email())){
-                throw new DuplicateResourceException("email already taken");
-            }
-            customer.setEmail(updateRequest.email());
-            changes = true;
-        }
-        if(!changes){
+        if(updateRequest.name() == null && updateRequest.email() == null && updateRequest.age() == null){
             throw new RequestValidationException("no data changes found");
         }
-        customerDao.updateCustomer(customer);
+        // the dao applies the provided fields in one conditional write and reports
+        // missing rows, stale versions, taken emails and no-op updates itself
+        Customer update = new Customer();
+        update.setId(customerId);
+        update.setName(updateRequest.name());
+        update.setEmail(updateRequest.email());
+        update.setAge(updateRequest.age());
+        update.setVersion(updateRequest.version());
+        customerDao.updateCustomer(update);
     }
 }
@@ -0,0 +1,54 @@
+package com.springapp.customer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times every public {@link CustomerService} operation as
+ * {@code customer.service}, tagged with the method, and counts the customers or
+ * results it hands back as {@code customer.service.rows}.
+ */
+@Aspect
+@Component
+public class CustomerServiceMetrics {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CustomerServiceMetrics.class);
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, OperationMetrics> operations = new ConcurrentHashMap<>();
+
+    public CustomerServiceMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * com.springapp.customer.CustomerService.*(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        return operations.computeIfAbsent(method, m -> new OperationMetrics(
+                        meterRegistry,
+                        "customer.service",
+                        Tags.of("method", m.getName()),
+                        LOGGER))
+                .record(joinPoint::proceed, CustomerServiceMetrics::rows);
+    }
+
+    static long rows(Object result) {
+        if(result instanceof Collection<?> collection){
+            return collection.size();
+        }
+        if(result instanceof CustomerPage page){
+            return page.customers().size();
+        }
+        return result instanceof Customer ? 1 : 0;
+    }
+}
@@ -3,5 +3,10 @@ package com.springapp.customer;
 public record CustomerUpdateRequest (
         String name,
         String email,
-        Integer age
-){}
+        Integer age,
+        Long version
+){
+    public CustomerUpdateRequest(String name, String email, Integer age) {
+        this(name, email, age, null);
+    }
+}
@@ -0,0 +1,22 @@
+package com.springapp.customer;
+
+/**
+ * A customer row read by a JPQL constructor expression. Hibernate builds it
+ * straight from the result set without registering anything in the
+ * persistence context, so there is no entity entry, no snapshot for dirty
+ * checking and nothing to flush.
+ */
+public record CustomerView(
+        Long id,
+        String name,
+        String email,
+        Integer age,
+        Gender gender,
+        Long version
+) {
+    Customer toCustomer() {
+        Customer customer = new Customer(id, name, email, age, gender);
+        customer.setVersion(version);
+        return customer;
+    }
+}
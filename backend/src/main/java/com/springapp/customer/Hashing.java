@@ -0,0 +1,28 @@
+package com.springapp.customer;
+
+/**
+ * 64-bit hashing of raw bytes for the primitive in-memory structures. FNV-1a
+ * followed by the murmur3 finaliser so nearby inputs spread over all bits.
+ */
+final class Hashing {
+    private Hashing() {
+    }
+
+    static long hash64(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return mix64(hash);
+    }
+
+    static long mix64(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,124 @@
+package com.springapp.customer;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing map from {@code long} to non-negative {@code int} on two
+ * primitive arrays, so millions of entries cost two objects instead of millions
+ * of boxed keys and nodes. Linear probing with backward shift deletion; not
+ * thread-safe, callers guard it.
+ */
+final class LongIntHashMap {
+    static final int NO_VALUE = -1;
+    private static final double MAX_LOAD = 0.6;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    LongIntHashMap(int expectedSize) {
+        allocate(tableSizeFor((int) Math.ceil(Math.max(expectedSize, 8) / MAX_LOAD)));
+    }
+
+    int get(long key) {
+        for (int i = indexOf(key); ; i = (i + 1) & mask) {
+            if(values[i] == NO_VALUE){
+                return NO_VALUE;
+            }
+            if(keys[i] == key){
+                return values[i];
+            }
+        }
+    }
+
+    /**
+     * @return the value already mapped to {@code key}, or {@link #NO_VALUE} if
+     * {@code value} was stored
+     */
+    int putIfAbsent(long key, int value) {
+        if(size + 1 > values.length * MAX_LOAD){
+            rehash(values.length << 1);
+        }
+        for (int i = indexOf(key); ; i = (i + 1) & mask) {
+            if(values[i] == NO_VALUE){
+                keys[i] = key;
+                values[i] = value;
+                size++;
+                return NO_VALUE;
+            }
+            if(keys[i] == key){
+                return values[i];
+            }
+        }
+    }
+
+    boolean remove(long key, int value) {
+        for (int i = indexOf(key); ; i = (i + 1) & mask) {
+            if(values[i] == NO_VALUE){
+                return false;
+            }
+            if(keys[i] == key){
+                if(values[i] != value){
+                    return false;
+                }
+                shiftBack(i);
+                size--;
+                return true;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long sizeInBytes() {
+        return (long) keys.length * Long.BYTES + (long) values.length * Integer.BYTES;
+    }
+
+    // pulls later entries of the probe run into the hole so lookups never stop early
+    private void shiftBack(int hole) {
+        for (int i = (hole + 1) & mask; values[i] != NO_VALUE; i = (i + 1) & mask) {
+            int home = indexOf(keys[i]);
+            if(((i - home) & mask) >= ((i - hole) & mask)){
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        values[hole] = NO_VALUE;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if(oldValues[i] != NO_VALUE){
+                for (int j = indexOf(oldKeys[i]); ; j = (j + 1) & mask) {
+                    if(values[j] == NO_VALUE){
+                        keys[j] = oldKeys[i];
+                        values[j] = oldValues[i];
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, NO_VALUE);
+        mask = capacity - 1;
+    }
+
+    private int indexOf(long key) {
+        return (int) Hashing.mix64(key) & mask;
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(capacity - 1) << 1;
+    }
+}
@@ -0,0 +1,131 @@
+package com.springapp.customer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Times every call to the wrapped implementation as {@code customer.dao}, and
+ * counts rows and errors as {@code customer.dao.rows} and
+ * {@code customer.dao.errors}. Every meter is tagged with the implementation
+ * name and the method.
+ */
+public class MeteredCustomerDao implements CustomerDao {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MeteredCustomerDao.class);
+    private final CustomerDao delegate;
+    private final OperationMetrics selectAllCustomers;
+    private final OperationMetrics selectCustomersAfter;
+    private final OperationMetrics searchCustomers;
+    private final OperationMetrics searchCustomersByName;
+    private final OperationMetrics streamAllCustomers;
+    private final OperationMetrics selectCustomerById;
+    private final OperationMetrics selectCustomerVersion;
+    private final OperationMetrics selectCustomersRevision;
+    private final OperationMetrics insertCustomer;
+    private final OperationMetrics insertCustomers;
+    private final OperationMetrics deleteCustomerById;
+    private final OperationMetrics updateCustomer;
+
+    public MeteredCustomerDao(CustomerDao delegate, String implementation, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.selectAllCustomers = operation(meterRegistry, implementation, "selectAllCustomers");
+        this.selectCustomersAfter = operation(meterRegistry, implementation, "selectCustomersAfter");
+        this.searchCustomers = operation(meterRegistry, implementation, "searchCustomers");
+        this.searchCustomersByName = operation(meterRegistry, implementation, "searchCustomersByName");
+        this.streamAllCustomers = operation(meterRegistry, implementation, "streamAllCustomers");
+        this.selectCustomerById = operation(meterRegistry, implementation, "selectCustomerById");
+        this.selectCustomerVersion = operation(meterRegistry, implementation, "selectCustomerVersion");
+        this.selectCustomersRevision = operation(meterRegistry, implementation, "selectCustomersRevision");
+        this.insertCustomer = operation(meterRegistry, implementation, "insertCustomer");
+        this.insertCustomers = operation(meterRegistry, implementation, "insertCustomers");
+        this.deleteCustomerById = operation(meterRegistry, implementation, "deleteCustomerById");
+        this.updateCustomer = operation(meterRegistry, implementation, "updateCustomer");
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return selectAllCustomers.record(delegate::selectAllCustomers, List::size);
+    }
+
+    @Override
+    public List<Customer> selectCustomersAfter(long afterId, int limit) {
+        return selectCustomersAfter.record(() -> delegate.selectCustomersAfter(afterId, limit), List::size);
+    }
+
+    @Override
+    public List<Customer> searchCustomers(CustomerSearch search, long afterId, int limit) {
+        return searchCustomers.record(() -> delegate.searchCustomers(search, afterId, limit), List::size);
+    }
+
+    @Override
+    public List<Customer> searchCustomersByName(String query, int offset, int limit) {
+        return searchCustomersByName.record(() -> delegate.searchCustomersByName(query, offset, limit), List::size);
+    }
+
+    @Override
+    public void streamAllCustomers(Consumer<Customer> consumer) {
+        long[] streamed = new long[1];
+        streamAllCustomers.record(() -> {
+            delegate.streamAllCustomers(customer -> {
+                streamed[0]++;
+                consumer.accept(customer);
+            });
+            return null;
+        }, none -> streamed[0]);
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long id) {
+        return selectCustomerById.record(() -> delegate.selectCustomerById(id), c -> c.isPresent() ? 1 : 0);
+    }
+
+    @Override
+    public Optional<Long> selectCustomerVersion(Long id) {
+        return selectCustomerVersion.record(() -> delegate.selectCustomerVersion(id), v -> v.isPresent() ? 1 : 0);
+    }
+
+    @Override
+    public long selectCustomersRevision() {
+        return selectCustomersRevision.record(delegate::selectCustomersRevision, revision -> 1);
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        insertCustomer.record(() -> {
+            delegate.insertCustomer(customer);
+            return null;
+        }, none -> 1);
+    }
+
+    @Override
+    public List<Boolean> insertCustomers(List<Customer> customers) {
+        return insertCustomers.record(
+                () -> delegate.insertCustomers(customers),
+                inserted -> inserted.stream().filter(Boolean::booleanValue).count());
+    }
+
+    @Override
+    public void deleteCustomerById(Long id) {
+        deleteCustomerById.record(() -> {
+            delegate.deleteCustomerById(id);
+            return null;
+        }, none -> 1);
+    }
+
+    @Override
+    public void updateCustomer(Customer update) {
+        updateCustomer.record(() -> {
+            delegate.updateCustomer(update);
+            return null;
+        }, none -> 1);
+    }
+
+    private static OperationMetrics operation(MeterRegistry meterRegistry, String implementation, String method) {
+        return new OperationMetrics(meterRegistry, "customer.dao", Tags.of("dao", implementation, "method", method), LOGGER);
+    }
+}
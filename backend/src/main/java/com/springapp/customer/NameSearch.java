@@ -0,0 +1,73 @@
+package com.springapp.customer;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Ranked search of customers by partial or misspelled name. In Postgres a name
+ * matches when every word of the query is a prefix of one of its words (the
+ * {@code name_search} tsvector) or when the query is trigram-similar to it
+ * ({@code pg_trgm}'s {@code <%}); the in-memory stores approximate the same
+ * with {@link #score}.
+ */
+final class NameSearch {
+    static final double WORD_SIMILARITY_THRESHOLD = 0.6;
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    private NameSearch() {
+    }
+
+    static List<String> words(String text) {
+        return WORD.matcher(text.toLowerCase(Locale.ROOT)).results().map(MatchResult::group).toList();
+    }
+
+    /**
+     * The {@code to_tsquery('simple', ...)} input matching every word of the
+     * query as a prefix, e.g. {@code ali:* & smi:*}. Only letters and digits
+     * make it into the string, so it never carries tsquery operators.
+     */
+    static String prefixTsQuery(String query) {
+        return words(query).stream()
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+
+    /**
+     * How well the name matches the query, from 0 to 1: per query word, the
+     * best share of its trigrams found in one word of the name, averaged.
+     * Like pg_trgm's word similarity, a prefix of a word scores high and a
+     * single typo still clears {@link #WORD_SIMILARITY_THRESHOLD}.
+     */
+    static double score(List<String> queryWords, String name) {
+        if(queryWords.isEmpty()){
+            return 0;
+        }
+        List<Set<String>> nameTrigrams = words(name).stream().map(NameSearch::trigrams).toList();
+        double total = 0;
+        for (String queryWord : queryWords) {
+            Set<String> wanted = trigrams(queryWord);
+            double best = 0;
+            for (Set<String> candidate : nameTrigrams) {
+                long found = wanted.stream().filter(candidate::contains).count();
+                best = Math.max(best, (double) found / wanted.size());
+            }
+            total += best;
+        }
+        return total / queryWords.size();
+    }
+
+    private static Set<String> trigrams(String word) {
+        // padded the way pg_trgm pads: two blanks before, one after
+        String padded = "  " + word + " ";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+}
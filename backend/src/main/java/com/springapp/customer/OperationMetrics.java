@@ -0,0 +1,88 @@
+package com.springapp.customer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * The meters of one instrumented operation: a timer per outcome with a
+ * percentile histogram, a counter of the rows it returned or affected, and a
+ * counter of failures tagged with the exception. Each call is also logged at
+ * debug level as {@code key=value} pairs.
+ */
+final class OperationMetrics {
+    @FunctionalInterface
+    interface Call<T, E extends Throwable> {
+        T call() throws E;
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final String name;
+    private final Tags tags;
+    private final Logger logger;
+    private final String logPrefix;
+    private final Timer succeeded;
+    private final Timer failed;
+    private final Counter rows;
+
+    OperationMetrics(MeterRegistry meterRegistry, String name, Tags tags, Logger logger) {
+        this.meterRegistry = meterRegistry;
+        this.name = name;
+        this.tags = tags;
+        this.logger = logger;
+        this.logPrefix = name + " " + tags.stream()
+                .map(tag -> tag.getKey() + "=" + tag.getValue())
+                .collect(Collectors.joining(" "));
+        this.succeeded = timer("success");
+        this.failed = timer("error");
+        this.rows = Counter.builder(name + ".rows")
+                .description("Rows returned or affected")
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
+    <T, E extends Throwable> T record(Call<T, E> call, ToLongFunction<? super T> rowCount) throws E {
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = call.call();
+        } catch (Throwable e) {
+            long elapsed = System.nanoTime() - start;
+            failed.record(elapsed, TimeUnit.NANOSECONDS);
+            Counter.builder(name + ".errors")
+                    .tags(tags)
+                    .tag("exception", e.getClass().getSimpleName())
+                    .register(meterRegistry)
+                    .increment();
+            if (logger.isDebugEnabled()) {
+                logger.debug("{} outcome=error exception={} durationMicros={}",
+                        logPrefix, e.getClass().getSimpleName(), TimeUnit.NANOSECONDS.toMicros(elapsed));
+            }
+            throw e;
+        }
+        long elapsed = System.nanoTime() - start;
+        long count = rowCount.applyAsLong(result);
+        succeeded.record(elapsed, TimeUnit.NANOSECONDS);
+        rows.increment(count);
+        if (logger.isDebugEnabled()) {
+            logger.debug("{} outcome=success rows={} durationMicros={}",
+                    logPrefix, count, TimeUnit.NANOSECONDS.toMicros(elapsed));
+        }
+        return result;
+    }
+
+    private Timer timer(String outcome) {
+        return Timer.builder(name)
+                .tags(tags)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,69 @@
+package com.springapp.customer;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * The endpoints of {@link CustomerController} on WebFlux. Lists are paged the
+ * same way; the export is written as the rows arrive, and the database is
+ * only asked for more rows when the connection to the client can take them.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("api/v1/customers")
+public class ReactiveCustomerController {
+    private final ReactiveCustomerService customerService;
+
+    public ReactiveCustomerController(ReactiveCustomerService customerService) {
+        this.customerService = customerService;
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<List<Customer>>> getCustomers(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "limit", defaultValue = "100") int limit
+    ){
+        return customerService.getCustomers(after, limit).map(page -> {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if(page.nextCursor() != null){
+                response.header(CustomerController.NEXT_CURSOR_HEADER, page.nextCursor().toString());
+            }
+            return response.body(page.customers());
+        });
+    }
+
+    @GetMapping(value = "export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Customer> exportCustomers(){
+        return customerService.exportCustomers();
+    }
+
+    @GetMapping("{customerId}")
+    public Mono<Customer> getCustomerById(@PathVariable("customerId") Long customerId){
+        return customerService.getCustomerById(customerId);
+    }
+    @PostMapping
+    public Mono<Void> registerCustomer(@RequestBody CustomerRegistrationRequest request){
+        return customerService.addCustomer(request);
+    }
+    @PostMapping("batch")
+    public Mono<List<CustomerBatchResult>> registerCustomers(@RequestBody List<CustomerRegistrationRequest> requests){
+        return customerService.addCustomers(requests);
+    }
+    @DeleteMapping("{customerId}")
+    public Mono<Void> deleteCustomer(@PathVariable("customerId") Long customerId){
+        return customerService.deleteCustomerById(customerId);
+    }
+    @PutMapping("{customerId}")
+    public Mono<Void> updateCustomer(
+            @PathVariable("customerId") Long customerId,
+            @RequestBody CustomerUpdateRequest updateRequest
+    ){
+        return customerService.updateCustomer(customerId, updateRequest);
+    }
+}
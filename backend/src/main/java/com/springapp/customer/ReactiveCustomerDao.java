@@ -0,0 +1,16 @@
+package com.springapp.customer;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface ReactiveCustomerDao {
+    Flux<Customer> selectAllCustomers();
+    Flux<Customer> selectCustomersAfter(long afterId, int limit);
+    Mono<Customer> selectCustomerById(Long id);
+    Mono<Boolean> insertCustomer(Customer customer);
+    Mono<List<Boolean>> insertCustomers(List<Customer> customers);
+    Mono<Boolean> deleteCustomerById(Long id);
+    Mono<Void> updateCustomer(Customer update);
+}
@@ -0,0 +1,104 @@
+package com.springapp.customer;
+
+import com.springapp.exception.DuplicateResourceException;
+import com.springapp.exception.RequestValidationException;
+import com.springapp.exception.ResourceNotFoundException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.springapp.customer.CustomerService.MAX_BATCH_SIZE;
+import static com.springapp.customer.CustomerService.MAX_PAGE_SIZE;
+
+@Service
+@Profile("reactive")
+public class ReactiveCustomerService {
+    private final ReactiveCustomerDao customerDao;
+
+    public ReactiveCustomerService(ReactiveCustomerDao customerDao) {
+        this.customerDao = customerDao;
+    }
+
+    public Mono<CustomerPage> getCustomers(Long after, int limit){
+        if(limit < 1 || limit > MAX_PAGE_SIZE){
+            return Mono.error(new RequestValidationException("limit must be between 1 and %s".formatted(MAX_PAGE_SIZE)));
+        }
+        // fetch one extra row to know whether another page exists
+        return customerDao.selectCustomersAfter(after == null ? 0 : after, limit + 1)
+                .collectList()
+                .map(customers -> CustomerService.page(customers, limit));
+    }
+    /**
+     * The whole table, streamed at the pace the client reads it.
+     */
+    public Flux<Customer> exportCustomers(){
+        return customerDao.selectAllCustomers();
+    }
+    public Mono<Customer> getCustomerById(Long id){
+        return customerDao.selectCustomerById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("customer with id [%s] not found".formatted(id))));
+    }
+    public Mono<Void> addCustomer(CustomerRegistrationRequest customerRegistrationRequest){
+        return Mono.fromCallable(customerRegistrationRequest::toCustomer)
+                .flatMap(customerDao::insertCustomer)
+                .flatMap(inserted -> inserted
+                        ? Mono.empty()
+                        : Mono.error(new DuplicateResourceException("email already taken")));
+    }
+    public Mono<List<CustomerBatchResult>> addCustomers(List<CustomerRegistrationRequest> requests){
+        if(requests.size() > MAX_BATCH_SIZE){
+            return Mono.error(new RequestValidationException("batch must not exceed %s customers".formatted(MAX_BATCH_SIZE)));
+        }
+        CustomerBatchResult[] results = new CustomerBatchResult[requests.size()];
+        List<Integer> positions = new ArrayList<>();
+        List<Customer> customers = new ArrayList<>();
+        Set<String> emails = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            CustomerRegistrationRequest request = requests.get(i);
+            if(request == null){
+                results[i] = new CustomerBatchResult(i, null, CustomerBatchResult.Status.INVALID);
+            } else if(!request.isComplete()){
+                results[i] = new CustomerBatchResult(i, request.email(), CustomerBatchResult.Status.INVALID);
+            } else if(!emails.add(request.email())){
+                results[i] = new CustomerBatchResult(i, request.email(), CustomerBatchResult.Status.DUPLICATE_EMAIL);
+            } else {
+                positions.add(i);
+                customers.add(request.toCustomer());
+            }
+        }
+        return customerDao.insertCustomers(customers).map(inserted -> {
+            for (int i = 0; i < positions.size(); i++) {
+                int position = positions.get(i);
+                results[position] = new CustomerBatchResult(
+                        position,
+                        customers.get(i).getEmail(),
+                        inserted.get(i) ? CustomerBatchResult.Status.CREATED : CustomerBatchResult.Status.DUPLICATE_EMAIL);
+            }
+            return List.of(results);
+        });
+    }
+    public Mono<Void> deleteCustomerById(Long id){
+        return customerDao.deleteCustomerById(id)
+                .flatMap(deleted -> deleted
+                        ? Mono.empty()
+                        : Mono.error(new ResourceNotFoundException("customer with id [%s] not found".formatted(id))));
+    }
+    public Mono<Void> updateCustomer(Long customerId, CustomerUpdateRequest updateRequest){
+        if(updateRequest.name() == null && updateRequest.email() == null && updateRequest.age() == null){
+            return Mono.error(new RequestValidationException("no data changes found"));
+        }
+        Customer update = new Customer();
+        update.setId(customerId);
+        update.setName(updateRequest.name());
+        update.setEmail(updateRequest.email());
+        update.setAge(updateRequest.age());
+        update.setVersion(updateRequest.version());
+        return customerDao.updateCustomer(update);
+    }
+}
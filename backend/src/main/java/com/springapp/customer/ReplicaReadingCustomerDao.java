@@ -0,0 +1,93 @@
+package com.springapp.customer;
+
+import com.springapp.config.ReplicaRoutingDataSource;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Runs the reads of the wrapped implementation inside
+ * {@link ReplicaRoutingDataSource#read}, so they may be served by a replica,
+ * and its writes inside {@link ReplicaRoutingDataSource#write}, so the client
+ * that made them reads them back from the primary.
+ */
+public class ReplicaReadingCustomerDao implements CustomerDao {
+    private final CustomerDao delegate;
+
+    public ReplicaReadingCustomerDao(CustomerDao delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return ReplicaRoutingDataSource.read(delegate::selectAllCustomers);
+    }
+
+    @Override
+    public List<Customer> selectCustomersAfter(long afterId, int limit) {
+        return ReplicaRoutingDataSource.read(() -> delegate.selectCustomersAfter(afterId, limit));
+    }
+
+    @Override
+    public List<Customer> searchCustomers(CustomerSearch search, long afterId, int limit) {
+        return ReplicaRoutingDataSource.read(() -> delegate.searchCustomers(search, afterId, limit));
+    }
+
+    @Override
+    public List<Customer> searchCustomersByName(String query, int offset, int limit) {
+        return ReplicaRoutingDataSource.read(() -> delegate.searchCustomersByName(query, offset, limit));
+    }
+
+    @Override
+    public void streamAllCustomers(Consumer<Customer> consumer) {
+        ReplicaRoutingDataSource.read(() -> {
+            delegate.streamAllCustomers(consumer);
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long id) {
+        return ReplicaRoutingDataSource.read(() -> delegate.selectCustomerById(id));
+    }
+
+    @Override
+    public Optional<Long> selectCustomerVersion(Long id) {
+        return ReplicaRoutingDataSource.read(() -> delegate.selectCustomerVersion(id));
+    }
+
+    @Override
+    public long selectCustomersRevision() {
+        return ReplicaRoutingDataSource.read(delegate::selectCustomersRevision);
+    }
+
+    @Override
+    public void insertCustomer(Customer customer) {
+        ReplicaRoutingDataSource.write(() -> {
+            delegate.insertCustomer(customer);
+            return null;
+        });
+    }
+
+    @Override
+    public List<Boolean> insertCustomers(List<Customer> customers) {
+        return ReplicaRoutingDataSource.write(() -> delegate.insertCustomers(customers));
+    }
+
+    @Override
+    public void deleteCustomerById(Long id) {
+        ReplicaRoutingDataSource.write(() -> {
+            delegate.deleteCustomerById(id);
+            return null;
+        });
+    }
+
+    @Override
+    public void updateCustomer(Customer update) {
+        ReplicaRoutingDataSource.write(() -> {
+            delegate.updateCustomer(update);
+            return null;
+        });
+    }
+}
@@ -0,0 +1,11 @@
+package com.springapp.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.CONFLICT)
+public class StaleResourceException extends RuntimeException{
+    public StaleResourceException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,113 @@
+package com.springapp.idempotency;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Hashes the request body as it is read, without buffering it, so the body of
+ * a CSV import can still stream. The fingerprint is the method, the URI and
+ * the SHA-256 of the whole body.
+ */
+final class FingerprintingRequest extends HttpServletRequestWrapper {
+    private final MessageDigest digest;
+    private DigestingInputStream inputStream;
+    private BufferedReader reader;
+    private String fingerprint;
+
+    FingerprintingRequest(HttpServletRequest request) {
+        super(request);
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if(inputStream == null){
+            inputStream = new DigestingInputStream(super.getInputStream(), digest);
+        }
+        return inputStream;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        if(reader == null){
+            Charset charset = getCharacterEncoding() != null
+                    ? Charset.forName(getCharacterEncoding())
+                    : StandardCharsets.UTF_8;
+            reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+        return reader;
+    }
+
+    /**
+     * Reads whatever is left of the body and returns the fingerprint of the
+     * request.
+     */
+    String fingerprint() throws IOException {
+        if(fingerprint == null){
+            getInputStream().transferTo(OutputStream.nullOutputStream());
+            String query = getQueryString();
+            fingerprint = getMethod() + " " + getRequestURI() + (query != null ? "?" + query : "")
+                    + " " + HexFormat.of().formatHex(digest.digest());
+        }
+        return fingerprint;
+    }
+
+    private static final class DigestingInputStream extends ServletInputStream {
+        private final ServletInputStream delegate;
+        private final MessageDigest digest;
+
+        private DigestingInputStream(ServletInputStream delegate, MessageDigest digest) {
+            this.delegate = delegate;
+            this.digest = digest;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if(b >= 0){
+                digest.update((byte) b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = delegate.read(b, off, len);
+            if(n > 0){
+                digest.update(b, off, n);
+            }
+            return n;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            delegate.setReadListener(readListener);
+        }
+    }
+}
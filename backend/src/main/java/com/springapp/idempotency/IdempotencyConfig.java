@@ -0,0 +1,53 @@
+package com.springapp.idempotency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.boot.web.servlet.error.ErrorAttributes;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+@Configuration
+@Profile("!reactive")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class IdempotencyConfig {
+
+    @Value("${idempotency.expire-after:24h}")
+    private Duration expireAfter;
+
+    @Bean
+    @ConditionalOnProperty(name = "idempotency.store", havingValue = "memory", matchIfMissing = true)
+    public IdempotencyStore inMemoryIdempotencyStore(
+            @Value("${idempotency.maximum-size:100000}") long maximumSize) {
+        return new InMemoryIdempotencyStore(maximumSize, expireAfter);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "idempotency.store", havingValue = "jdbc")
+    public IdempotencyStore jdbcIdempotencyStore(
+            JdbcTemplate jdbcTemplate,
+            @Value("${idempotency.lease:10s}") Duration lease,
+            @Value("${idempotency.poll-interval:50ms}") Duration pollInterval,
+            @Value("${idempotency.purge-interval:1m}") Duration purgeInterval) {
+        return new JdbcIdempotencyStore(jdbcTemplate, expireAfter, lease, pollInterval, purgeInterval);
+    }
+
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(
+            IdempotencyStore idempotencyStore,
+            ErrorAttributes errorAttributes,
+            MeterRegistry meterRegistry,
+            @Value("${idempotency.await-timeout:30s}") Duration awaitTimeout,
+            @Value("${rate-limit.api-key-header:X-API-Key}") String apiKeyHeader) {
+        FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(
+                new IdempotencyFilter(idempotencyStore, awaitTimeout, apiKeyHeader, errorAttributes, meterRegistry));
+        registration.addUrlPatterns("/api/v1/customers/*");
+        return registration;
+    }
+}
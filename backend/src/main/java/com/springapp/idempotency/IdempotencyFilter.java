@@ -0,0 +1,272 @@
+package com.springapp.idempotency;
+
+import com.springapp.config.RateLimitInterceptor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.web.servlet.error.ErrorAttributes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs a write request sent with an {@code Idempotency-Key} at most once per
+ * key. The first request records its response in the {@link IdempotencyStore};
+ * a retry is answered from the store with the recorded status, headers and
+ * body, marked {@code Idempotent-Replayed}, and never reaches the controller, while a duplicate sent during the first one
+ * waits up to {@code awaitTimeout} for it and then gets a 409. Reusing a key
+ * for a different method, URI or body is rejected with a 422. Server errors
+ * and 429s are not recorded, so a retry after one runs the request again.
+ * <p>
+ * Keys belong to the client that sent them, identified like
+ * {@link RateLimitInterceptor#client} does it, so two clients that happen to
+ * pick the same key neither wait on nor replay each other's responses.
+ * <p>
+ * Headers set before this filter, such as the CORS ones, belong to the request
+ * at hand and are neither recorded nor replayed.
+ * <p>
+ * Outcomes are counted as {@code idempotency.requests}, tagged with the outcome.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+    static final int MAX_KEY_LENGTH = 255;
+    private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final IdempotencyStore store;
+    private final Duration awaitTimeout;
+    private final String apiKeyHeader;
+    private final ErrorAttributes errorAttributes;
+    private final Counter executed;
+    private final Counter released;
+    private final Counter replayed;
+    private final Counter mismatched;
+    private final Counter inFlight;
+    private final Counter invalid;
+
+    public IdempotencyFilter(IdempotencyStore store,
+                             Duration awaitTimeout,
+                             String apiKeyHeader,
+                             ErrorAttributes errorAttributes,
+                             MeterRegistry meterRegistry) {
+        this.store = store;
+        this.awaitTimeout = awaitTimeout;
+        this.apiKeyHeader = apiKeyHeader;
+        this.errorAttributes = errorAttributes;
+        this.executed = outcome(meterRegistry, "executed");
+        this.released = outcome(meterRegistry, "released");
+        this.replayed = outcome(meterRegistry, "replayed");
+        this.mismatched = outcome(meterRegistry, "mismatch");
+        this.inFlight = outcome(meterRegistry, "in_flight");
+        this.invalid = outcome(meterRegistry, "invalid");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !WRITE_METHODS.contains(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY);
+        if(key.isBlank() || key.length() > MAX_KEY_LENGTH){
+            invalid.increment();
+            response.sendError(HttpStatus.BAD_REQUEST.value(),
+                    "%s must be 1 to %d characters".formatted(IDEMPOTENCY_KEY, MAX_KEY_LENGTH));
+            return;
+        }
+        String clientKey = RateLimitInterceptor.client(request, apiKeyHeader) + " " + key;
+        FingerprintingRequest fingerprintingRequest = new FingerprintingRequest(request);
+        try {
+            // a released key goes back to whoever claims it next
+            while (true) {
+                if(store.claim(clientKey)){
+                    execute(clientKey, fingerprintingRequest, response, filterChain);
+                    return;
+                }
+                Optional<IdempotentResponse> recorded = store.await(clientKey, awaitTimeout);
+                if(recorded.isPresent()){
+                    replay(recorded.get(), fingerprintingRequest, response);
+                    return;
+                }
+            }
+        } catch (TimeoutException e) {
+            inFlight.increment();
+            response.sendError(HttpStatus.CONFLICT.value(),
+                    "a request with this %s is still in progress".formatted(IDEMPOTENCY_KEY));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServletException(e);
+        }
+    }
+
+    private void execute(String key,
+                         FingerprintingRequest request,
+                         HttpServletResponse response,
+                         FilterChain filterChain) throws ServletException, IOException {
+        RecordingResponse recording = new RecordingResponse(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, recording);
+            if(recording.getStatus() < 500 && recording.getStatus() != HttpStatus.TOO_MANY_REQUESTS.value()){
+                store.complete(key, recording.recorded(request));
+                completed = true;
+                executed.increment();
+            }
+        } finally {
+            if(!completed){
+                store.release(key);
+                released.increment();
+            }
+            recording.copyBodyToResponse();
+        }
+    }
+
+    private void replay(IdempotentResponse recorded,
+                        FingerprintingRequest request,
+                        HttpServletResponse response) throws IOException {
+        if(!recorded.fingerprint().equals(request.fingerprint())){
+            mismatched.increment();
+            response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                    "%s was already used for a different request".formatted(IDEMPOTENCY_KEY));
+            return;
+        }
+        replayed.increment();
+        recorded.headers().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        response.setHeader(IDEMPOTENT_REPLAYED, "true");
+        if(recorded.error()){
+            if(recorded.errorMessage() != null){
+                response.sendError(recorded.status(), recorded.errorMessage());
+            } else {
+                response.sendError(recorded.status());
+            }
+            return;
+        }
+        response.setStatus(recorded.status());
+        if(recorded.contentType() != null){
+            response.setContentType(recorded.contentType());
+        }
+        response.setContentLength(recorded.body().length);
+        response.getOutputStream().write(recorded.body());
+    }
+
+    private static String httpDate(long date) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(date).atZone(ZoneOffset.UTC));
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("idempotency.requests")
+                .description("Requests sent with an Idempotency-Key")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Buffers the body, keeps the headers set through it and remembers whether
+     * the response went to the error page, which renders it only after this
+     * filter has returned.
+     */
+    private final class RecordingResponse extends ContentCachingResponseWrapper {
+        private final HttpHeaders headers = new HttpHeaders();
+        private boolean error;
+        private String errorMessage;
+
+        private RecordingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            error = true;
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            error = true;
+            errorMessage = msg;
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            super.setHeader(name, value);
+            record(name, value, false);
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            super.addHeader(name, value);
+            record(name, value, true);
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            super.setIntHeader(name, value);
+            record(name, Integer.toString(value), false);
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            super.addIntHeader(name, value);
+            record(name, Integer.toString(value), true);
+        }
+
+        @Override
+        public void setDateHeader(String name, long date) {
+            super.setDateHeader(name, date);
+            record(name, httpDate(date), false);
+        }
+
+        @Override
+        public void addDateHeader(String name, long date) {
+            super.addDateHeader(name, date);
+            record(name, httpDate(date), true);
+        }
+
+        private void record(String name, String value, boolean add) {
+            // the content type is kept on its own and the length follows the body
+            if(HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)){
+                return;
+            }
+            if(add){
+                headers.add(name, value);
+            } else {
+                headers.set(name, value);
+            }
+        }
+
+        private IdempotentResponse recorded(FingerprintingRequest request) throws IOException {
+            String message = errorMessage;
+            if(error && message == null){
+                // @ResponseStatus exceptions send no reason, the error page shows their message
+                Throwable cause = errorAttributes.getError(new ServletWebRequest(request));
+                message = cause != null ? cause.getMessage() : null;
+            }
+            return new IdempotentResponse(
+                    request.fingerprint(),
+                    getStatus(),
+                    error,
+                    message,
+                    headers,
+                    error ? null : getContentType(),
+                    error ? new byte[0] : getContentAsByteArray());
+        }
+    }
+}
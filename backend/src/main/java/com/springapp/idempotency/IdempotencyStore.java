@@ -0,0 +1,29 @@
+package com.springapp.idempotency;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Responses of idempotent requests by key. A request first claims its key;
+ * the one that succeeds runs and then completes or releases it, every other
+ * request with the same key waits for that outcome.
+ */
+public interface IdempotencyStore {
+    /**
+     * Claims {@code key} for the caller. False when another request holds it
+     * or has already completed it.
+     */
+    boolean claim(String key);
+
+    /**
+     * Waits for the request holding {@code key}: its response once completed,
+     * or empty when it was released or nobody holds it, so the caller can
+     * claim it.
+     */
+    Optional<IdempotentResponse> await(String key, Duration timeout) throws InterruptedException, TimeoutException;
+
+    void complete(String key, IdempotentResponse response);
+
+    void release(String key);
+}
@@ -0,0 +1,21 @@
+package com.springapp.idempotency;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * The response recorded for an idempotency key, together with the fingerprint
+ * of the request that produced it. The headers are the ones the request set
+ * itself, such as {@code Location}, without the content type and length. A
+ * response that was rendered by the error page carries its status and message
+ * rather than a body, and is replayed through the error page again.
+ */
+public record IdempotentResponse(
+        String fingerprint,
+        int status,
+        boolean error,
+        String errorMessage,
+        HttpHeaders headers,
+        String contentType,
+        byte[] body
+) {
+}
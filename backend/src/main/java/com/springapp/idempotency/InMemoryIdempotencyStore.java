@@ -0,0 +1,81 @@
+package com.springapp.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Keeps the completed responses of this node in a bounded cache that expires
+ * them after {@code expireAfter}. Requests in flight are tracked separately,
+ * so eviction can never drop a key someone is waiting on; their number is
+ * bounded by the number of concurrent requests.
+ */
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+    private final Cache<String, IdempotentResponse> completed;
+    private final ConcurrentMap<String, CompletableFuture<IdempotentResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public InMemoryIdempotencyStore(long maximumSize, Duration expireAfter) {
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfter)
+                .build();
+    }
+
+    @Override
+    public boolean claim(String key) {
+        if(completed.getIfPresent(key) != null){
+            return false;
+        }
+        CompletableFuture<IdempotentResponse> claimed = new CompletableFuture<>();
+        if(inFlight.putIfAbsent(key, claimed) != null){
+            return false;
+        }
+        // the previous holder may have completed between the two lookups
+        IdempotentResponse response = completed.getIfPresent(key);
+        if(response != null){
+            inFlight.remove(key, claimed);
+            claimed.complete(response);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Optional<IdempotentResponse> await(String key, Duration timeout)
+            throws InterruptedException, TimeoutException {
+        CompletableFuture<IdempotentResponse> pending = inFlight.get(key);
+        if(pending == null){
+            return Optional.ofNullable(completed.getIfPresent(key));
+        }
+        try {
+            return Optional.ofNullable(pending.get(timeout.toNanos(), TimeUnit.NANOSECONDS));
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void complete(String key, IdempotentResponse response) {
+        completed.put(key, response);
+        CompletableFuture<IdempotentResponse> pending = inFlight.remove(key);
+        if(pending != null){
+            pending.complete(response);
+        }
+    }
+
+    @Override
+    public void release(String key) {
+        CompletableFuture<IdempotentResponse> pending = inFlight.remove(key);
+        if(pending != null){
+            pending.complete(null);
+        }
+    }
+}
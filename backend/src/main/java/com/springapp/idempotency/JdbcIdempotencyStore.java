@@ -0,0 +1,213 @@
+package com.springapp.idempotency;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps idempotency keys in the {@code idempotency_key} table so every node
+ * sees them. A key is claimed by inserting its row, or by taking over a row
+ * that is no longer held; requests waiting on another node poll the row every
+ * {@code pollInterval}. Expired rows are purged at most once per
+ * {@code purgeInterval}, by whichever request claims a key next. Response
+ * headers are stored as text, one {@code name: value} per line.
+ * <p>
+ * An in-flight key is held for {@code lease}, which this node renews every
+ * third of it while the request runs. When the node or the request dies
+ * without releasing the key, the lease lapses and a retry takes the key over
+ * instead of waiting for {@code expireAfter}, which only applies to completed
+ * keys.
+ */
+public class JdbcIdempotencyStore implements IdempotencyStore, AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JdbcIdempotencyStore.class);
+    private final JdbcTemplate jdbcTemplate;
+    private final double expireAfterSeconds;
+    private final double leaseSeconds;
+    private final Duration pollInterval;
+    private final long purgeIntervalNanos;
+    private final AtomicLong nextPurge;
+    private final Set<String> held = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService renewer;
+
+    public JdbcIdempotencyStore(JdbcTemplate jdbcTemplate,
+                                Duration expireAfter,
+                                Duration lease,
+                                Duration pollInterval,
+                                Duration purgeInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.expireAfterSeconds = expireAfter.toMillis() / 1000.0;
+        this.leaseSeconds = lease.toMillis() / 1000.0;
+        this.pollInterval = pollInterval;
+        this.purgeIntervalNanos = purgeInterval.toNanos();
+        this.nextPurge = new AtomicLong(System.nanoTime());
+        this.renewer = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("idempotency-lease").daemon().factory());
+        long renewEveryMillis = Math.max(lease.toMillis() / 3, 1);
+        renewer.scheduleWithFixedDelay(this::renewLeases, renewEveryMillis, renewEveryMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean claim(String key) {
+        purgeExpired();
+        var sql = """
+                INSERT INTO idempotency_key(key, claimed_until) VALUES (?, now() + make_interval(secs => ?))
+                ON CONFLICT (key) DO UPDATE
+                SET created_at = now(), claimed_until = excluded.claimed_until, completed_at = NULL,
+                    fingerprint = NULL, status = NULL, error = NULL, error_message = NULL,
+                    headers = NULL, content_type = NULL, body = NULL
+                WHERE CASE WHEN idempotency_key.completed_at IS NULL
+                           THEN idempotency_key.claimed_until < now()
+                           ELSE idempotency_key.created_at < now() - make_interval(secs => ?)
+                      END
+                RETURNING key
+                """;
+        boolean claimed = !jdbcTemplate.queryForList(sql, String.class, key, leaseSeconds, expireAfterSeconds).isEmpty();
+        if(claimed){
+            held.add(key);
+        }
+        return claimed;
+    }
+
+    @Override
+    public Optional<IdempotentResponse> await(String key, Duration timeout)
+            throws InterruptedException, TimeoutException {
+        var sql = """
+                SELECT completed_at IS NOT NULL AS completed,
+                       fingerprint, status, error, error_message, headers, content_type, body
+                FROM idempotency_key
+                WHERE key = ?
+                AND CASE WHEN completed_at IS NULL
+                         THEN claimed_until >= now()
+                         ELSE created_at >= now() - make_interval(secs => ?)
+                    END
+                """;
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            List<Optional<IdempotentResponse>> rows = jdbcTemplate.query(sql, (rs, rowNum) ->
+                    rs.getBoolean("completed")
+                            ? Optional.of(new IdempotentResponse(
+                                    rs.getString("fingerprint"),
+                                    rs.getInt("status"),
+                                    rs.getBoolean("error"),
+                                    rs.getString("error_message"),
+                                    parseHeaders(rs.getString("headers")),
+                                    rs.getString("content_type"),
+                                    rs.getBytes("body")))
+                            : Optional.empty(),
+                    key, expireAfterSeconds);
+            if(rows.isEmpty()){
+                return Optional.empty();
+            }
+            if(rows.get(0).isPresent()){
+                return rows.get(0);
+            }
+            if(System.nanoTime() - deadline >= 0){
+                throw new TimeoutException("idempotency key [%s] is still in flight".formatted(key));
+            }
+            Thread.sleep(pollInterval.toMillis());
+        }
+    }
+
+    @Override
+    public void complete(String key, IdempotentResponse response) {
+        var sql = """
+                UPDATE idempotency_key
+                SET completed_at = now(), fingerprint = ?, status = ?, error = ?,
+                    error_message = ?, headers = ?, content_type = ?, body = ?
+                WHERE key = ?
+                """;
+        held.remove(key);
+        jdbcTemplate.update(sql,
+                response.fingerprint(),
+                response.status(),
+                response.error(),
+                response.errorMessage(),
+                formatHeaders(response.headers()),
+                response.contentType(),
+                response.body(),
+                key);
+    }
+
+    @Override
+    public void release(String key) {
+        var sql = """
+                DELETE FROM idempotency_key
+                WHERE key = ? AND completed_at IS NULL
+                """;
+        held.remove(key);
+        jdbcTemplate.update(sql, key);
+    }
+
+    /**
+     * Stops renewing leases; keys still held lapse after {@code lease}.
+     */
+    @Override
+    public void close() {
+        renewer.shutdownNow();
+    }
+
+    private void renewLeases() {
+        if(held.isEmpty()){
+            return;
+        }
+        var sql = """
+                UPDATE idempotency_key
+                SET claimed_until = now() + make_interval(secs => ?)
+                WHERE key = ANY(?) AND completed_at IS NULL
+                """;
+        String[] keys = held.toArray(String[]::new);
+        try {
+            jdbcTemplate.update(sql, statement -> {
+                statement.setDouble(1, leaseSeconds);
+                statement.setArray(2, statement.getConnection().createArrayOf("text", keys));
+            });
+        } catch (RuntimeException e) {
+            // the next run tries again, a lease lapses only after three misses
+            LOGGER.warn("could not renew {} idempotency key leases", keys.length, e);
+        }
+    }
+
+    private static String formatHeaders(HttpHeaders headers) {
+        StringBuilder text = new StringBuilder();
+        headers.forEach((name, values) -> values.forEach(value ->
+                text.append(name).append(": ").append(value).append('\n')));
+        return text.toString();
+    }
+
+    private static HttpHeaders parseHeaders(String text) {
+        HttpHeaders headers = new HttpHeaders();
+        if(text != null){
+            // servlet containers reject header values with line breaks
+            text.lines().forEach(line -> {
+                int colon = line.indexOf(": ");
+                headers.add(line.substring(0, colon), line.substring(colon + 2));
+            });
+        }
+        return headers;
+    }
+
+    private void purgeExpired() {
+        long now = System.nanoTime();
+        long due = nextPurge.get();
+        if(now - due < 0 || !nextPurge.compareAndSet(due, now + purgeIntervalNanos)){
+            return;
+        }
+        var sql = """
+                DELETE FROM idempotency_key
+                WHERE created_at < now() - make_interval(secs => ?)
+                """;
+        jdbcTemplate.update(sql, expireAfterSeconds);
+    }
+}
@@ -0,0 +1,4 @@
+-- Hibernate's pooled optimizer takes a block of 50 ids per nextval, matching
+-- the allocationSize on Customer. Inserts that use the column default still
+-- take one value each, they are just 50 apart.
+ALTER SEQUENCE customer_id_seq INCREMENT BY 50;
@@ -0,0 +1,2 @@
+-- headers of the recorded response, one "name: value" per line
+ALTER TABLE idempotency_key ADD COLUMN headers TEXT;
@@ -0,0 +1,6 @@
+-- how long the request holding an in-flight key is trusted to still be running;
+-- its node renews it, so it lapses soon after that node or request dies
+ALTER TABLE idempotency_key ADD COLUMN claimed_until TIMESTAMPTZ;
+
+-- keys claimed before leases existed can be taken over at once
+UPDATE idempotency_key SET claimed_until = now() WHERE completed_at IS NULL;
@@ -0,0 +1,7 @@
+-- prefix search: lower(name) / lower(email) LIKE 'prefix%'
+CREATE INDEX customer_lower_name_idx ON customer (lower(name) text_pattern_ops);
+CREATE INDEX customer_lower_email_idx ON customer (lower(email) text_pattern_ops);
+
+-- age range, alone or behind a gender equality
+CREATE INDEX customer_gender_age_idx ON customer (gender, age);
+CREATE INDEX customer_age_idx ON customer (age);
@@ -0,0 +1,5 @@
+-- 'simple' lower-cases without stemming, which is what names want
+ALTER TABLE customer
+ADD COLUMN name_search TSVECTOR GENERATED ALWAYS AS (to_tsvector('simple', name)) STORED;
+
+CREATE INDEX customer_name_search_idx ON customer USING GIN (name_search);
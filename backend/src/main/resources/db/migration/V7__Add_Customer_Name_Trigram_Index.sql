@@ -0,0 +1,4 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- serves name similarity (%, <%) and LIKE '%x%' without a table scan
+CREATE INDEX customer_name_trgm_idx ON customer USING GIN (name gin_trgm_ops);
@@ -0,0 +1,22 @@
+-- collection-level change marker for conditional GETs: every statement that
+-- writes to customer bumps one of the shards, the marker is their sum. The
+-- bump commits with the write itself, and spreading it over shards keeps
+-- concurrent writers from queueing on a single counter row.
+CREATE TABLE customer_revision (
+    shard INT PRIMARY KEY,
+    revision BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO customer_revision (shard)
+SELECT generate_series(0, 15);
+
+CREATE FUNCTION bump_customer_revision() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE customer_revision SET revision = revision + 1 WHERE shard = pg_backend_pid() % 16;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER customer_revision_bump
+AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON customer
+FOR EACH STATEMENT EXECUTE FUNCTION bump_customer_revision();
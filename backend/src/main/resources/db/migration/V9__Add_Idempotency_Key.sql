@@ -0,0 +1,15 @@
+-- responses of requests sent with an Idempotency-Key, shared by all nodes when
+-- idempotency.store=jdbc. A row without completed_at is still in flight.
+CREATE TABLE idempotency_key(
+    key TEXT PRIMARY KEY,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    completed_at TIMESTAMPTZ,
+    fingerprint TEXT,
+    status INT,
+    error BOOLEAN,
+    error_message TEXT,
+    content_type TEXT,
+    body BYTEA
+);
+
+CREATE INDEX idempotency_key_created_at_idx ON idempotency_key(created_at);
@@ -0,0 +1,95 @@
+package com.springapp.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConnectionPermitDataSourceTest {
+    private ConnectionPermitDataSource underTest;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Mock
+    private DataSource dataSource;
+    @Mock
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new ConnectionPermitDataSource(dataSource, "test", 2, Duration.ofMillis(50));
+        underTest.bindTo(meterRegistry);
+    }
+
+    @Test
+    void connectionHoldsPermitUntilClosed() throws SQLException {
+        // Given
+        when(dataSource.getConnection()).thenReturn(connection);
+        // When
+        Connection actual = underTest.getConnection();
+        // Then
+        assertThat(underTest.availablePermits()).isEqualTo(1);
+        assertThat(((ConnectionProxy) actual).getTargetConnection()).isSameAs(connection);
+        actual.close();
+        actual.close();
+        assertThat(underTest.availablePermits()).isEqualTo(2);
+        verify(connection, times(2)).close();
+    }
+
+    @Test
+    void waitingPastTimeoutFails() throws SQLException {
+        // Given
+        when(dataSource.getConnection()).thenReturn(connection);
+        underTest.getConnection();
+        underTest.getConnection();
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getConnection())
+                .isInstanceOf(SQLTransientConnectionException.class)
+                .hasMessageContaining("2 connection permits");
+        verify(dataSource, times(2)).getConnection();
+        assertThat(meterRegistry.get("datasource.connection.permit.wait")
+                .tag("outcome", "timeout")
+                .timer()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void permitIsReturnedWhenPoolFails() throws SQLException {
+        // Given
+        when(dataSource.getConnection()).thenThrow(new SQLTransientConnectionException("pool exhausted"));
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getConnection())
+                .hasMessage("pool exhausted");
+        assertThat(underTest.availablePermits()).isEqualTo(2);
+        assertThat(meterRegistry.get("datasource.connection.permit.wait")
+                .tag("outcome", "acquired")
+                .timer()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void closingClosesWrappedPool() throws Exception {
+        // Given
+        HikariDataSource pool = mock(HikariDataSource.class);
+        ConnectionPermitDataSource wrapper = new ConnectionPermitDataSource(pool, "test", 2, Duration.ofMillis(50));
+        // When
+        wrapper.close();
+        // Then
+        verify(pool).close();
+    }
+}
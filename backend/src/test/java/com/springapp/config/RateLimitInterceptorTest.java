@@ -0,0 +1,82 @@
+package com.springapp.config;
+
+import com.springapp.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimitInterceptorTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RateLimitInterceptor underTest = new RateLimitInterceptor(
+            Map.of(
+                    RateLimitInterceptor.Route.LIST, new TokenBucketRateLimiter(1, 0.5, 100),
+                    RateLimitInterceptor.Route.BY_ID, new TokenBucketRateLimiter(1, 0.5, 100),
+                    RateLimitInterceptor.Route.WRITES, new TokenBucketRateLimiter(1, 0.5, 100)),
+            "X-API-Key",
+            meterRegistry);
+
+    @Test
+    void exhaustedBucketIsRejectedWithRetryAfter() {
+        // Given
+        underTest.preHandle(get("/api/v1/customers"), new MockHttpServletResponse(), null);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.preHandle(get("/api/v1/customers"), response, null))
+                .isInstanceOf(TooManyRequestsException.class);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("2");
+        assertThat(meterRegistry.get("rate.limit.rejected").tag("route", "list").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void routesHaveTheirOwnBuckets() {
+        // Given
+        underTest.preHandle(get("/api/v1/customers"), new MockHttpServletResponse(), null);
+        // When
+        boolean byId = underTest.preHandle(get("/api/v1/customers/{customerId}"), new MockHttpServletResponse(), null);
+        boolean write = underTest.preHandle(request("POST", "/api/v1/customers"), new MockHttpServletResponse(), null);
+        // Then
+        assertThat(byId).isTrue();
+        assertThat(write).isTrue();
+    }
+
+    @Test
+    void clientsAreKeyedByApiKeyBeforeAddress() {
+        // Given
+        underTest.preHandle(get("/api/v1/customers"), new MockHttpServletResponse(), null);
+        MockHttpServletRequest partner = get("/api/v1/customers");
+        partner.addHeader("X-API-Key", "partner");
+        // When
+        boolean actual = underTest.preHandle(partner, new MockHttpServletResponse(), null);
+        // Then
+        assertThat(actual).isTrue();
+    }
+
+    @Test
+    void routeFollowsMethodAndMatchedPattern() {
+        assertThat(RateLimitInterceptor.route(get("/api/v1/customers/search")))
+                .isEqualTo(RateLimitInterceptor.Route.LIST);
+        assertThat(RateLimitInterceptor.route(get("/api/v1/customers/{customerId}")))
+                .isEqualTo(RateLimitInterceptor.Route.BY_ID);
+        assertThat(RateLimitInterceptor.route(request("DELETE", "/api/v1/customers/{customerId}")))
+                .isEqualTo(RateLimitInterceptor.Route.WRITES);
+    }
+
+    private static MockHttpServletRequest get(String pattern) {
+        return request("GET", pattern);
+    }
+
+    private static MockHttpServletRequest request(String method, String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, pattern);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+}
@@ -0,0 +1,217 @@
+package com.springapp.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Mock
+    private DataSource primary;
+    @Mock
+    private DataSource replica1;
+    @Mock
+    private DataSource replica2;
+    @Mock
+    private Connection primaryConnection;
+    @Mock
+    private Connection replica1Connection;
+    @Mock
+    private Connection replica2Connection;
+
+    @Test
+    void connectionsOutsideAReadGoToThePrimary() throws SQLException {
+        // Given
+        ReplicaRoutingDataSource underTest = routing(ReplicaRoutingDataSource.Balance.ROUND_ROBIN, Duration.ZERO);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        // When
+        Connection actual = underTest.getConnection();
+        // Then
+        assertThat(target(actual)).isSameAs(primaryConnection);
+        assertThat(connections("primary", "write")).isEqualTo(1);
+        verifyNoInteractions(replica1, replica2);
+    }
+
+    @Test
+    void readsAreSpreadRoundRobin() throws SQLException {
+        // Given
+        ReplicaRoutingDataSource underTest = routing(ReplicaRoutingDataSource.Balance.ROUND_ROBIN, Duration.ZERO);
+        when(replica1.getConnection()).thenReturn(replica1Connection);
+        when(replica2.getConnection()).thenReturn(replica2Connection);
+        // When
+        List<Connection> actual = ReplicaRoutingDataSource.read(() -> List.of(
+                connect(underTest), connect(underTest), connect(underTest)));
+        // Then
+        assertThat(actual).extracting(ReplicaRoutingDataSourceTest::target)
+                .containsExactly(replica1Connection, replica2Connection, replica1Connection);
+        assertThat(connections("replica-1", "read")).isEqualTo(2);
+        assertThat(connections("replica-2", "read")).isEqualTo(1);
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void readsGoToTheReplicaWithFewestOpenConnections() throws SQLException {
+        // Given
+        ReplicaRoutingDataSource underTest = routing(ReplicaRoutingDataSource.Balance.LEAST_CONNECTIONS, Duration.ZERO);
+        when(replica1.getConnection()).thenReturn(replica1Connection);
+        when(replica2.getConnection()).thenReturn(replica2Connection);
+        // When
+        Connection first = ReplicaRoutingDataSource.read(() -> connect(underTest));
+        Connection second = ReplicaRoutingDataSource.read(() -> connect(underTest));
+        first.close();
+        Connection third = ReplicaRoutingDataSource.read(() -> connect(underTest));
+        // Then
+        assertThat(target(first)).isSameAs(replica1Connection);
+        assertThat(target(second)).isSameAs(replica2Connection);
+        assertThat(target(third)).isSameAs(replica1Connection);
+        assertThat(meterRegistry.get("datasource.routing.active").tag("pool", "replica-1").gauge().value())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void readsRightAfterAWriteOfTheSameClientStayOnThePrimary() throws SQLException {
+        // Given
+        ReplicaRoutingDataSource underTest = routing(ReplicaRoutingDataSource.Balance.ROUND_ROBIN, Duration.ofHours(1));
+        when(replica1.getConnection()).thenReturn(replica1Connection);
+        when(replica2.getConnection()).thenReturn(replica2Connection);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        // When
+        Connection read;
+        Connection readAfterWrite;
+        try (ReplicaRoutingDataSource.Session session = underTest.session("ip:10.0.0.1")) {
+            read = ReplicaRoutingDataSource.read(() -> connect(underTest));
+            ReplicaRoutingDataSource.write(() -> connect(underTest));
+            readAfterWrite = ReplicaRoutingDataSource.read(() -> connect(underTest));
+        }
+        Connection laterRead;
+        try (ReplicaRoutingDataSource.Session session = underTest.session("ip:10.0.0.1")) {
+            laterRead = ReplicaRoutingDataSource.read(() -> connect(underTest));
+        }
+        Connection otherClientRead;
+        try (ReplicaRoutingDataSource.Session session = underTest.session("ip:10.0.0.2")) {
+            otherClientRead = ReplicaRoutingDataSource.read(() -> connect(underTest));
+        }
+        // Then
+        assertThat(target(read)).isSameAs(replica1Connection);
+        assertThat(target(readAfterWrite)).isSameAs(primaryConnection);
+        assertThat(target(laterRead)).isSameAs(primaryConnection);
+        assertThat(target(otherClientRead)).isSameAs(replica2Connection);
+        assertThat(connections("primary", "read_your_writes")).isEqualTo(2);
+    }
+
+    @Test
+    void primaryConnectionsOutsideAWriteDoNotKeepReadsOnThePrimary() throws SQLException {
+        // Given
+        ReplicaRoutingDataSource underTest = routing(ReplicaRoutingDataSource.Balance.ROUND_ROBIN, Duration.ofHours(1));
+        when(replica1.getConnection()).thenReturn(replica1Connection);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        // When
+        // a health check or a background job
+        underTest.getConnection().close();
+        Connection read;
+        try (ReplicaRoutingDataSource.Session session = underTest.session("ip:10.0.0.1")) {
+            underTest.getConnection().close();
+            read = ReplicaRoutingDataSource.read(() -> connect(underTest));
+        }
+        // Then
+        assertThat(target(read)).isSameAs(replica1Connection);
+    }
+
+    @Test
+    void readsOfOneSessionStayOnOneReplica() throws SQLException {
+        // Given
+        ReplicaRoutingDataSource underTest = routing(ReplicaRoutingDataSource.Balance.ROUND_ROBIN, Duration.ZERO);
+        when(replica1.getConnection()).thenReturn(replica1Connection);
+        when(replica2.getConnection()).thenReturn(replica2Connection);
+        // When
+        List<Connection> first;
+        try (ReplicaRoutingDataSource.Session session = underTest.session("ip:10.0.0.1")) {
+            // the revision and then the page it tags
+            first = List.of(
+                    ReplicaRoutingDataSource.read(() -> connect(underTest)),
+                    ReplicaRoutingDataSource.read(() -> connect(underTest)));
+        }
+        Connection next;
+        try (ReplicaRoutingDataSource.Session session = underTest.session("ip:10.0.0.1")) {
+            next = ReplicaRoutingDataSource.read(() -> connect(underTest));
+        }
+        // Then
+        assertThat(first).extracting(ReplicaRoutingDataSourceTest::target)
+                .containsExactly(replica1Connection, replica1Connection);
+        assertThat(target(next)).isSameAs(replica2Connection);
+    }
+
+    @Test
+    void readsInsideAReadWriteTransactionStayOnThePrimary() throws SQLException {
+        // Given
+        ReplicaRoutingDataSource underTest = routing(ReplicaRoutingDataSource.Balance.ROUND_ROBIN, Duration.ZERO);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            // When
+            Connection actual = ReplicaRoutingDataSource.read(() -> connect(underTest));
+            // Then
+            assertThat(target(actual)).isSameAs(primaryConnection);
+        } finally {
+            TransactionSynchronizationManager.clear();
+        }
+        verifyNoInteractions(replica1, replica2);
+    }
+
+    @Test
+    void unavailableReplicaFallsBackToThePrimary() throws SQLException {
+        // Given
+        ReplicaRoutingDataSource underTest = routing(ReplicaRoutingDataSource.Balance.ROUND_ROBIN, Duration.ZERO);
+        when(replica1.getConnection()).thenThrow(new SQLTransientConnectionException("down"));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        // When
+        Connection actual = ReplicaRoutingDataSource.read(() -> connect(underTest));
+        // Then
+        assertThat(target(actual)).isSameAs(primaryConnection);
+        assertThat(connections("primary", "fallback")).isEqualTo(1);
+    }
+
+    private ReplicaRoutingDataSource routing(ReplicaRoutingDataSource.Balance balance, Duration window) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(
+                new ReplicaRoutingDataSource.Pool("primary", primary),
+                List.of(new ReplicaRoutingDataSource.Pool("replica-1", replica1),
+                        new ReplicaRoutingDataSource.Pool("replica-2", replica2)),
+                balance,
+                window,
+                100);
+        routing.bindTo(meterRegistry);
+        return routing;
+    }
+
+    private double connections(String pool, String route) {
+        return meterRegistry.get("datasource.routing.connections").tag("pool", pool).tag("route", route)
+                .counter().count();
+    }
+
+    private static Connection connect(DataSource dataSource) {
+        try {
+            return dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Connection target(Connection connection) {
+        return ((ConnectionProxy) connection).getTargetConnection();
+    }
+}
@@ -0,0 +1,75 @@
+package com.springapp.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketRateLimiterTest {
+    private final AtomicLong nanos = new AtomicLong(1_000);
+    private final TokenBucketRateLimiter underTest = new TokenBucketRateLimiter(3, 10, 100, nanos::get);
+
+    @Test
+    void burstUpToCapacityThenWaitForRefill() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            assertThat(underTest.tryAcquire("alex")).isZero();
+        }
+        // When
+        long wait = underTest.tryAcquire("alex");
+        // Then
+        assertThat(wait).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    void tokensAreRefilledOverTime() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            underTest.tryAcquire("alex");
+        }
+        // When
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        // Then
+        assertThat(underTest.tryAcquire("alex")).isZero();
+        assertThat(underTest.tryAcquire("alex")).isPositive();
+    }
+
+    @Test
+    void idleBucketRefillsOnlyUpToCapacity() {
+        // Given
+        underTest.tryAcquire("alex");
+        // When
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        // Then
+        for (int i = 0; i < 3; i++) {
+            assertThat(underTest.tryAcquire("alex")).isZero();
+        }
+        assertThat(underTest.tryAcquire("alex")).isPositive();
+    }
+
+    @Test
+    void clientsHaveTheirOwnBuckets() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            underTest.tryAcquire("alex");
+        }
+        // When
+        long wait = underTest.tryAcquire("jamila");
+        // Then
+        assertThat(wait).isZero();
+        assertThat(underTest.clients()).isEqualTo(2);
+    }
+
+    @Test
+    void bucketIsEvictedOnceIdleUntilFull() {
+        // Given
+        underTest.tryAcquire("alex");
+        // When
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(301));
+        underTest.tryAcquire("jamila");
+        // Then
+        assertThat(underTest.clients()).isEqualTo(1);
+    }
+}
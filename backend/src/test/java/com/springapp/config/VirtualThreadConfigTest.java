@@ -0,0 +1,43 @@
+package com.springapp.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class VirtualThreadConfigTest {
+    @Mock
+    private DataSource dataSource;
+    @Mock
+    private Connection connection;
+
+    @Test
+    void poolWithDefaultSizeGetsPermitsForEveryConnection() throws Exception {
+        // Given
+        lenient().when(dataSource.getConnection()).thenReturn(connection);
+        lenient().when(connection.isValid(anyInt())).thenReturn(true);
+        HikariDataSource hikari = new HikariDataSource();
+        hikari.setDataSource(dataSource);
+        hikari.setConnectionTimeout(250);
+        // When
+        Object actual = VirtualThreadConfig.connectionPermitDataSourcePostProcessor()
+                .postProcessAfterInitialization(hikari, "dataSource");
+        // Then
+        assertThat(actual).isInstanceOf(ConnectionPermitDataSource.class);
+        try (ConnectionPermitDataSource permitDataSource = (ConnectionPermitDataSource) actual) {
+            assertThat(permitDataSource.availablePermits()).isEqualTo(hikari.getMaximumPoolSize()).isPositive();
+            try (Connection ignored = permitDataSource.getConnection()) {
+                assertThat(permitDataSource.availablePermits()).isEqualTo(hikari.getMaximumPoolSize() - 1);
+            }
+        }
+    }
+}
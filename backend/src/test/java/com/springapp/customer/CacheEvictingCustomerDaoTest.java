@@ -0,0 +1,88 @@
+package com.springapp.customer;
+
+import com.springapp.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheEvictingCustomerDaoTest {
+    private CacheEvictingCustomerDao underTest;
+    @Mock
+    private CustomerDao delegate;
+    @Mock
+    private CustomerSecondLevelCache cache;
+    @BeforeEach
+    void setUp() {
+        underTest = new CacheEvictingCustomerDao(delegate, cache);
+    }
+
+    @Test
+    void updateCustomerEvictsAfterWriting() {
+        // Given
+        Customer update = new Customer();
+        update.setId(1L);
+        update.setName("Alexandro");
+        // When
+        underTest.updateCustomer(update);
+        // Then
+        InOrder inOrder = inOrder(delegate, cache);
+        inOrder.verify(delegate).updateCustomer(update);
+        inOrder.verify(cache).evict(1L);
+    }
+
+    @Test
+    void deleteCustomerByIdEvictsAfterWriting() {
+        // When
+        underTest.deleteCustomerById(1L);
+        // Then
+        InOrder inOrder = inOrder(delegate, cache);
+        inOrder.verify(delegate).deleteCustomerById(1L);
+        inOrder.verify(cache).evict(1L);
+    }
+
+    @Test
+    void failedDeleteEvictsNothing() {
+        // Given
+        doThrow(new ResourceNotFoundException("customer with id [1] not found"))
+                .when(delegate).deleteCustomerById(1L);
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.deleteCustomerById(1L))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verifyNoInteractions(cache);
+    }
+
+    @Test
+    void insertCustomersEvictsNothing() {
+        // Given
+        List<Customer> customers = List.of(new Customer("Alex", "alex@gmail.com", 20, Gender.MALE));
+        when(delegate.insertCustomers(customers)).thenReturn(List.of(true));
+        // When
+        List<Boolean> actual = underTest.insertCustomers(customers);
+        // Then
+        assertThat(actual).containsExactly(true);
+        verifyNoInteractions(cache);
+    }
+
+    @Test
+    void readsEvictNothing() {
+        // Given
+        when(delegate.selectCustomerById(1L)).thenReturn(Optional.empty());
+        // When
+        underTest.selectCustomerById(1L);
+        underTest.selectCustomerVersion(1L);
+        // Then
+        verifyNoInteractions(cache);
+    }
+}
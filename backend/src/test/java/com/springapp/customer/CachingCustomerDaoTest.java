@@ -0,0 +1,120 @@
+package com.springapp.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingCustomerDaoTest {
+    private CachingCustomerDao underTest;
+    @Mock
+    private CustomerDao delegate;
+    @BeforeEach
+    void setUp() {
+        underTest = new CachingCustomerDao(delegate, 100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void selectCustomerByIdIsServedFromCache() {
+        // Given
+        long id = 1;
+        Customer customer = new Customer(id, "Alex", "alex@gmail.com", 20, Gender.MALE);
+        when(delegate.selectCustomerById(id)).thenReturn(Optional.of(customer));
+        // When
+        underTest.selectCustomerById(id);
+        Optional<Customer> actual = underTest.selectCustomerById(id);
+        // Then
+        assertThat(actual).contains(customer);
+        assertThat(actual.get()).isNotSameAs(customer);
+        assertThat(underTest.selectCustomerById(id)).isPresent();
+        verify(delegate, times(1)).selectCustomerById(id);
+        assertThat(underTest.cache().stats().hitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void missingCustomerIsNotCached() {
+        // Given
+        long id = 1;
+        when(delegate.selectCustomerById(id)).thenReturn(Optional.empty());
+        // When
+        underTest.selectCustomerById(id);
+        Optional<Customer> actual = underTest.selectCustomerById(id);
+        // Then
+        assertThat(actual).isEmpty();
+        verify(delegate, times(2)).selectCustomerById(id);
+    }
+
+    @Test
+    void updateCustomerInvalidatesEntry() {
+        // Given
+        long id = 1;
+        Customer customer = new Customer(id, "Alex", "alex@gmail.com", 20, Gender.MALE);
+        when(delegate.selectCustomerById(id)).thenReturn(Optional.of(customer));
+        underTest.selectCustomerById(id);
+        Customer update = new Customer();
+        update.setId(id);
+        update.setName("Alexandro");
+        // When
+        underTest.updateCustomer(update);
+        underTest.selectCustomerById(id);
+        // Then
+        verify(delegate).updateCustomer(update);
+        verify(delegate, times(2)).selectCustomerById(id);
+    }
+
+    @Test
+    void deleteCustomerByIdInvalidatesEntry() {
+        // Given
+        long id = 1;
+        Customer customer = new Customer(id, "Alex", "alex@gmail.com", 20, Gender.MALE);
+        when(delegate.selectCustomerById(id)).thenReturn(Optional.of(customer));
+        underTest.selectCustomerById(id);
+        // When
+        underTest.deleteCustomerById(id);
+        // Then
+        verify(delegate).deleteCustomerById(id);
+        assertThat(underTest.cache().getIfPresent(id)).isNull();
+    }
+
+    @Test
+    void cacheIsBoundedBySize() {
+        // Given
+        CachingCustomerDao bounded = new CachingCustomerDao(delegate, 10, Duration.ofMinutes(1));
+        when(delegate.selectCustomerById(anyLong()))
+                .thenAnswer(invocation -> Optional.of(new Customer(
+                        invocation.getArgument(0), "Alex", "alex@gmail.com", 20, Gender.MALE)));
+        // When
+        for (long id = 0; id < 1_000; id++) {
+            bounded.selectCustomerById(id);
+        }
+        bounded.cache().cleanUp();
+        // Then
+        assertThat(bounded.cache().estimatedSize()).isLessThanOrEqualTo(10);
+        assertThat(bounded.cache().stats().evictionCount()).isPositive();
+    }
+
+    @Test
+    void selectCustomerVersionIsServedFromCachedRow() {
+        // Given
+        long id = 1;
+        Customer customer = new Customer(id, "Alex", "alex@gmail.com", 20, Gender.MALE);
+        customer.setVersion(3L);
+        when(delegate.selectCustomerById(id)).thenReturn(Optional.of(customer));
+        underTest.selectCustomerById(id);
+        // When
+        Optional<Long> cached = underTest.selectCustomerVersion(id);
+        underTest.selectCustomerVersion(2L);
+        // Then
+        assertThat(cached).contains(3L);
+        verify(delegate, never()).selectCustomerVersion(id);
+        verify(delegate).selectCustomerVersion(2L);
+    }
+}
@@ -0,0 +1,77 @@
+package com.springapp.customer;
+
+import com.springapp.AbstractTestcontainers;
+import com.springapp.exception.RequestValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerImportServiceTest extends AbstractTestcontainers {
+    private CustomerImportService underTest;
+    private CustomerJDBCDataAccessService customerDao;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate jdbcTemplate = getJdbcTemplate();
+        underTest = new CustomerImportService(jdbcTemplate);
+        customerDao = new CustomerJDBCDataAccessService(jdbcTemplate, new CustomerRowMapper());
+        transactionTemplate = new TransactionTemplate(
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource())
+        );
+    }
+
+    @Test
+    void importCsv() {
+        // Given
+        String takenEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        customerDao.insertCustomer(new Customer(FAKER.name().fullName(), takenEmail, 20, Gender.MALE));
+        String freshEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        String csv = """
+                name,email,age,gender
+                Jamila,%1$s,19,FEMALE
+                Jamila,%1$s,19,FEMALE
+                Ali,%2$s,30,MALE
+                Aya,%3$s,not-a-number,FEMALE
+                """.formatted(freshEmail, takenEmail, UUID.randomUUID());
+        // When
+        CustomerImportResult actual = transactionTemplate.execute(status -> underTest.importCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                true
+        ));
+        // Then
+        assertThat(actual).isNotNull();
+        assertThat(actual.rowsLoaded()).isEqualTo(1);
+        assertThat(actual.rowsRejected()).isEqualTo(3);
+        assertThat(customerDao.selectAllCustomers()).extracting(Customer::getEmail).contains(freshEmail);
+    }
+
+    @Test
+    void importCsvWithStructurallyBrokenLineIsRejected() {
+        // Given
+        String freshEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        String csv = """
+                name,email,age,gender
+                Jamila,%s,19,FEMALE
+                Ali,%s,30,MALE,one-column-too-many
+                """.formatted(freshEmail, UUID.randomUUID());
+        // When
+        // Then
+        assertThatThrownBy(() -> transactionTemplate.execute(status -> underTest.importCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                true
+        )))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessageStartingWith("malformed CSV at line 3");
+        assertThat(customerDao.selectAllCustomers()).extracting(Customer::getEmail).doesNotContain(freshEmail);
+    }
+}
@@ -1,14 +1,19 @@
 package com.springapp.customer;
 
 import com.springapp.AbstractTestcontainers;
+import com.springapp.exception.DuplicateResourceException;
+import com.springapp.exception.ResourceNotFoundException;
+import com.springapp.exception.StaleResourceException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
     private CustomerJDBCDataAccessService underTest;
@@ -37,6 +42,46 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
         assertThat(customers).isNotEmpty();
     }
 
+    @Test
+    void selectCustomersAfter() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            underTest.insertCustomer(new Customer(
+                    FAKER.name().fullName(),
+                    FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                    20,
+                    Gender.MALE));
+        }
+        // When
+        List<Customer> firstPage = underTest.selectCustomersAfter(0, 2);
+        List<Customer> secondPage = underTest.selectCustomersAfter(firstPage.get(1).getId(), 2);
+
+        // Then
+        assertThat(firstPage).hasSize(2);
+        assertThat(firstPage.get(0).getId()).isLessThan(firstPage.get(1).getId());
+        assertThat(secondPage).isNotEmpty()
+                .allSatisfy(c -> assertThat(c.getId()).isGreaterThan(firstPage.get(1).getId()));
+    }
+
+    @Test
+    void streamAllCustomers() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                20,
+                Gender.MALE);
+        underTest.insertCustomer(customer);
+        // When
+        List<Customer> streamed = new ArrayList<>();
+        underTest.streamAllCustomers(streamed::add);
+
+        // Then
+        assertThat(streamed).hasSameSizeAs(underTest.selectAllCustomers())
+                .anySatisfy(c -> assertThat(c.getEmail()).isEqualTo(email));
+    }
+
     @Test
     void selectCustomerById() {
         // Given
@@ -100,62 +145,38 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
             assertThat(c.getEmail().equals(customer.getEmail()));
             assertThat(c.getAge().equals(customer.getAge()));
         });
+        assertThat(customer.getId()).isEqualTo(id);
     }
 
     @Test
-    void existsPersonWithEmail() {
+    void willThrowWhenInsertingTakenEmail() {
         // Given
         String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
-        Customer customer = new Customer(
-                FAKER.name().fullName(),
-                email,
-                20,
-                Gender.MALE);
-        underTest.insertCustomer(customer);
+        underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 20, Gender.MALE));
+        Customer duplicate = new Customer(FAKER.name().fullName(), email, 30, Gender.FEMALE);
         // When
-        boolean actual = underTest.existsCustomerWithEmail(email);
         // Then
-        assertThat(actual).isTrue();
-    }
-    @Test
-    void existsPersonWithEmailReturnsFalseWhenDoesNotExists() {
-        // Given
-        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
-        // When
-        boolean actual = underTest.existsCustomerWithEmail(email);
-        // Then
-        assertThat(actual).isFalse();
+        assertThatThrownBy(() -> underTest.insertCustomer(duplicate))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("email already taken");
+        assertThat(duplicate.getId()).isNull();
     }
 
     @Test
-    void existsPersonWithId() {
+    void insertCustomers() {
         // Given
-        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
-        Customer customer = new Customer(
-                FAKER.name().fullName(),
-                email,
-                20,
-                Gender.MALE);
-        underTest.insertCustomer(customer);
-        Long id = underTest.selectAllCustomers()
-                .stream()
-                .filter(c -> c.getEmail().equals(email))
-                .map(Customer::getId)
-                .findFirst()
-                .orElseThrow();
-        // When
-        boolean actual = underTest.existsCustomerById(id);
-        // Then
-        assertThat(actual).isTrue();
-    }
-    @Test
-    void existsPersonWithIdWillReturnFalseWhenIdNotPresent() {
-
-        long id = -1;
+        String takenEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(FAKER.name().fullName(), takenEmail, 20, Gender.MALE));
+        String freshEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        List<Customer> batch = List.of(
+                new Customer(FAKER.name().fullName(), freshEmail, 30, Gender.FEMALE),
+                new Customer(FAKER.name().fullName(), takenEmail, 40, Gender.MALE)
+        );
         // When
-        boolean actual = underTest.existsCustomerById(id);
+        List<Boolean> actual = underTest.insertCustomers(batch);
         // Then
-        assertThat(actual).isFalse();
+        assertThat(actual).containsExactly(true, false);
+        assertThat(underTest.selectAllCustomers()).extracting(Customer::getEmail).contains(freshEmail);
     }
 
     @Test
@@ -181,6 +202,17 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
         assertThat(actual).isNotPresent();
     }
 
+    @Test
+    void willThrowWhenDeletingMissingCustomer() {
+        // Given
+        long id = -1;
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.deleteCustomerById(id))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("customer with id [%s] not found".formatted(id));
+    }
+
     @Test
     void updateCustomerName() {
         // Given
@@ -352,4 +384,102 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestcontainers {
         });
 
     }
-}
\ No newline at end of file
+    @Test
+    void willThrowWhenUpdatingWithStaleVersion() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                20,
+                Gender.MALE);
+        underTest.insertCustomer(customer);
+        Customer inserted = underTest.selectAllCustomers()
+                .stream()
+                .filter(c -> c.getEmail().equals(email))
+                .findFirst()
+                .orElseThrow();
+        Customer firstUpdate = new Customer();
+        firstUpdate.setId(inserted.getId());
+        firstUpdate.setAge(21);
+        firstUpdate.setVersion(inserted.getVersion());
+        underTest.updateCustomer(firstUpdate);
+        // When
+        Customer staleUpdate = new Customer();
+        staleUpdate.setId(inserted.getId());
+        staleUpdate.setAge(22);
+        staleUpdate.setVersion(inserted.getVersion());
+
+        // Then
+        assertThatThrownBy(() -> underTest.updateCustomer(staleUpdate))
+                .isInstanceOf(StaleResourceException.class);
+        assertThat(underTest.selectCustomerById(inserted.getId())).hasValueSatisfying(c -> {
+            assertThat(c.getAge()).isEqualTo(21);
+            assertThat(c.getVersion()).isEqualTo(inserted.getVersion() + 1);
+        });
+    }
+    @Test
+    void willThrowWhenUpdatingToTakenEmail() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        String takenEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 20, Gender.MALE));
+        underTest.insertCustomer(new Customer(FAKER.name().fullName(), takenEmail, 20, Gender.MALE));
+        Long id = underTest.selectAllCustomers()
+                .stream()
+                .filter(c -> c.getEmail().equals(email))
+                .map(Customer::getId)
+                .findFirst()
+                .orElseThrow();
+        // When
+        Customer update = new Customer();
+        update.setId(id);
+        update.setEmail(takenEmail);
+
+        // Then
+        assertThatThrownBy(() -> underTest.updateCustomer(update))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("email already taken");
+    }
+
+    @Test
+    void searchCustomersByNameFindsPartialAndMisspelledNames() {
+        // Given
+        String surname = "Zyqwerton" + UUID.randomUUID().toString().replaceAll("[^a-z]", "");
+        Customer customer = new Customer(
+                "Alison " + surname,
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                20,
+                Gender.FEMALE);
+        underTest.insertCustomer(customer);
+        // When
+        List<Customer> byPrefix = underTest.searchCustomersByName(surname.substring(0, 6) + " ali", 0, 10);
+        List<Customer> byTypo = underTest.searchCustomersByName("Alison Zyqwreton", 0, 10);
+        // Then
+        assertThat(byPrefix).extracting(Customer::getName).containsExactly(customer.getName());
+        assertThat(byTypo).extracting(Customer::getName).contains(customer.getName());
+    }
+
+    @Test
+    void revisionAndVersionChangeWithWrites() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        long initial = underTest.selectCustomersRevision();
+        underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 20, Gender.MALE));
+        long afterInsert = underTest.selectCustomersRevision();
+        Customer inserted = underTest.selectAllCustomers().stream()
+                .filter(c -> c.getEmail().equals(email))
+                .findFirst()
+                .orElseThrow();
+        // When
+        Customer update = new Customer();
+        update.setId(inserted.getId());
+        update.setAge(21);
+        underTest.updateCustomer(update);
+        // Then
+        assertThat(afterInsert).isGreaterThan(initial);
+        assertThat(underTest.selectCustomersRevision()).isGreaterThan(afterInsert);
+        assertThat(underTest.selectCustomerVersion(inserted.getId())).contains(inserted.getVersion() + 1);
+        assertThat(underTest.selectCustomerVersion(-1L)).isEmpty();
+    }
+}
@@ -1,22 +1,46 @@
 package com.springapp.customer;
 
+import com.springapp.exception.DuplicateResourceException;
+import com.springapp.exception.ResourceNotFoundException;
+import com.springapp.exception.StaleResourceException;
+import jakarta.persistence.EntityManager;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
-import static org.mockito.Mockito.verify;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
 
 class CustomerJPADataAccessServiceTest {
     private CustomerJPADataAccessService underTest;
     @Mock
     private CustomerRepository customerRepository;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private PlatformTransactionManager transactionManager;
     private AutoCloseable autoCloseable ;
     @BeforeEach
     void setUp() {
         autoCloseable = MockitoAnnotations.openMocks(this);
-        underTest = new CustomerJPADataAccessService(customerRepository);
+        underTest = new CustomerJPADataAccessService(customerRepository, entityManager, transactionManager);
     }
 
     @AfterEach
@@ -26,10 +50,41 @@ class CustomerJPADataAccessServiceTest {
 
     @Test
     void selectAllCustomers() {
+        // Given
+        when(customerRepository.findAllViews())
+                .thenReturn(List.of(new CustomerView(1L, "Aya", "aya@gmail.com", 20, Gender.FEMALE, 3L)));
+        // When
+        List<Customer> actual = underTest.selectAllCustomers();
+        // Then
+        assertThat(actual).containsExactly(new Customer(1L, "Aya", "aya@gmail.com", 20, Gender.FEMALE));
+        assertThat(actual.get(0).getVersion()).isEqualTo(3L);
+    }
+
+    @Test
+    void selectCustomersAfter() {
+        // Given
+        long afterId = 10;
+        int limit = 5;
+        // When
+        underTest.selectCustomersAfter(afterId, limit);
+        // Then
+        verify(customerRepository).findViewsByIdGreaterThan(afterId, PageRequest.ofSize(limit));
+    }
+
+    @Test
+    void streamAllCustomersClosesTheStream() {
+        // Given
+        AtomicBoolean closed = new AtomicBoolean();
+        when(customerRepository.streamAllViews()).thenReturn(Stream.of(
+                new CustomerView(1L, "Aya", "aya@gmail.com", 20, Gender.FEMALE, 0L),
+                new CustomerView(2L, "Ali", "ali@gmail.com", 30, Gender.MALE, 1L)
+        ).onClose(() -> closed.set(true)));
+        List<Customer> streamed = new ArrayList<>();
         // When
-        underTest.selectAllCustomers();
+        underTest.streamAllCustomers(streamed::add);
         // Then
-        verify(customerRepository).findAll();
+        assertThat(streamed).extracting(Customer::getId).containsExactly(1L, 2L);
+        assertThat(closed).isTrue();
     }
 
     @Test
@@ -51,53 +106,156 @@ class CustomerJPADataAccessServiceTest {
                 "chaymae@gmail.com",
                 25,
                 Gender.MALE);
+        when(customerRepository.insertIfEmailAbsent("Chaymae", "chaymae@gmail.com", 25, "MALE"))
+                .thenReturn(Optional.of(7L));
         // When
         underTest.insertCustomer(customer);
         // Then
-        verify(customerRepository).save(customer);
+        assertThat(customer.getId()).isEqualTo(7L);
+        assertThat(customer.getVersion()).isZero();
     }
 
     @Test
-    void existsPersonWithEmail() {
+    void willThrowWhenInsertingTakenEmail() {
         // Given
-        String email = "chaymae@example.com";
+        Customer customer = new Customer("Chaymae", "chaymae@gmail.com", 25, Gender.MALE);
+        when(customerRepository.insertIfEmailAbsent("Chaymae", "chaymae@gmail.com", 25, "MALE"))
+                .thenReturn(Optional.empty());
         // When
-        underTest.existsCustomerWithEmail(email);
         // Then
-        verify(customerRepository).existsCustomerByEmail(email);
+        assertThatThrownBy(() -> underTest.insertCustomer(customer))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("email already taken");
     }
 
     @Test
-    void existsPersonWithId() {
+    void insertCustomers() {
         // Given
-        long id = 1;
+        Customer fresh = new Customer("Chaymae", "chaymae@gmail.com", 25, Gender.FEMALE);
+        Customer taken = new Customer("Aya", "aya@gmail.com", 20, Gender.FEMALE);
+        when(customerRepository.findExistingEmails(List.of(fresh.getEmail(), taken.getEmail())))
+                .thenReturn(Set.of(taken.getEmail()));
+        // When
+        List<Boolean> actual = underTest.insertCustomers(List.of(fresh, taken));
+        // Then
+        verify(customerRepository).saveAll(List.of(fresh));
+        assertThat(actual).containsExactly(true, false);
+    }
+
+    @Test
+    void insertCustomersFlushesAndClearsEachChunk() {
+        // Given
+        ReflectionTestUtils.setField(underTest, "batchSize", 2);
+        Customer first = new Customer("Chaymae", "chaymae@gmail.com", 25, Gender.FEMALE);
+        Customer second = new Customer("Aya", "aya@gmail.com", 20, Gender.FEMALE);
+        Customer third = new Customer("Ali", "ali@gmail.com", 30, Gender.MALE);
+        when(customerRepository.findExistingEmails(anyList())).thenReturn(Set.of());
         // When
-        underTest.existsCustomerById(id);
+        List<Boolean> actual = underTest.insertCustomers(List.of(first, second, third));
         // Then
-        verify(customerRepository).existsCustomerById(id);
+        InOrder inOrder = inOrder(customerRepository, entityManager);
+        inOrder.verify(customerRepository).saveAll(List.of(first, second));
+        inOrder.verify(entityManager).flush();
+        inOrder.verify(entityManager).clear();
+        inOrder.verify(customerRepository).saveAll(List.of(third));
+        inOrder.verify(entityManager).flush();
+        inOrder.verify(entityManager).clear();
+        assertThat(actual).containsExactly(true, true, true);
+    }
+
+    @Test
+    void insertCustomersSkipsEmailTakenAfterTheLookup() {
+        // Given
+        Customer fresh = new Customer("Chaymae", "chaymae@gmail.com", 25, Gender.FEMALE);
+        Customer raced = new Customer("Aya", "aya@gmail.com", 20, Gender.FEMALE);
+        when(customerRepository.findExistingEmails(anyList()))
+                .thenReturn(Set.of())
+                .thenReturn(Set.of(raced.getEmail()));
+        AtomicLong ids = new AtomicLong();
+        when(customerRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Customer> saved = invocation.getArgument(0);
+            saved.forEach(c -> c.setId(ids.incrementAndGet()));
+            return saved;
+        });
+        doThrow(new ConstraintViolationException("duplicate key", new SQLException(), "customer_email_unique"))
+                .doNothing()
+                .when(entityManager).flush();
+        // When
+        List<Boolean> actual = underTest.insertCustomers(List.of(fresh, raced));
+        // Then
+        verify(transactionManager).rollback(any());
+        verify(customerRepository).saveAll(List.of(fresh));
+        assertThat(raced.getId()).isNull();
+        assertThat(actual).containsExactly(true, false);
     }
 
     @Test
     void deleteCustomerById() {
         // Given
         long id = 1;
+        when(customerRepository.deleteReturningId(id)).thenReturn(Optional.of(id));
         // When
         underTest.deleteCustomerById(id);
         // Then
-        verify(customerRepository).deleteById(id);
+        verify(customerRepository).deleteReturningId(id);
+    }
+
+    @Test
+    void willThrowWhenDeletingMissingCustomer() {
+        // Given
+        long id = -1;
+        when(customerRepository.deleteReturningId(id)).thenReturn(Optional.empty());
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.deleteCustomerById(id))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("customer with id [%s] not found".formatted(id));
     }
 
     @Test
     void updateCustomer() {
         // Given
-        Customer update = new Customer(
+        long id = 1;
+        Customer existing = new Customer(
+                id,
                 "Aya",
                 "aya@gmail.com",
                 20,
                 Gender.MALE);
+        existing.setVersion(0L);
+        when(customerRepository.findById(id)).thenReturn(Optional.of(existing));
+        Customer update = new Customer();
+        update.setId(id);
+        update.setName("Ayoub");
+        update.setVersion(0L);
         // When
         underTest.updateCustomer(update);
         // Then
-        verify(customerRepository).save(update);
+        verify(customerRepository).saveAndFlush(existing);
+        assertThat(existing.getName()).isEqualTo("Ayoub");
+        assertThat(existing.getEmail()).isEqualTo("aya@gmail.com");
+    }
+
+    @Test
+    void willThrowWhenUpdatingStaleVersion() {
+        // Given
+        long id = 1;
+        Customer existing = new Customer(
+                id,
+                "Aya",
+                "aya@gmail.com",
+                20,
+                Gender.MALE);
+        existing.setVersion(2L);
+        when(customerRepository.findById(id)).thenReturn(Optional.of(existing));
+        Customer update = new Customer();
+        update.setId(id);
+        update.setName("Ayoub");
+        update.setVersion(1L);
+        // When
+        assertThatThrownBy(()->underTest.updateCustomer(update))
+                .isInstanceOf(StaleResourceException.class);
+        // Then
+        verify(customerRepository, never()).saveAndFlush(any());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,194 @@
+package com.springapp.customer;
+
+import com.springapp.exception.DuplicateResourceException;
+import com.springapp.exception.ResourceNotFoundException;
+import com.springapp.exception.StaleResourceException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerListDataAccessServiceTest {
+    private CustomerListDataAccessService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerListDataAccessService();
+    }
+
+    @Test
+    void insertCustomerAssignsId() {
+        // Given
+        Customer customer = new Customer("Alex", "alex@gmail.com", 20, Gender.MALE);
+        // When
+        underTest.insertCustomer(customer);
+        // Then
+        assertThat(customer.getId()).isNotNull();
+        assertThat(underTest.selectCustomerById(customer.getId())).contains(customer);
+    }
+
+    @Test
+    void willThrowWhenInsertingTakenEmail() {
+        // Given
+        underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 20, Gender.MALE));
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.insertCustomer(new Customer("Aya", "alex@gmail.com", 22, Gender.FEMALE)))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("email already taken");
+    }
+
+    @Test
+    void updateCustomerReplacesInsteadOfAppending() {
+        // Given
+        Customer customer = new Customer("Alex", "alex@gmail.com", 20, Gender.MALE);
+        underTest.insertCustomer(customer);
+        int size = underTest.selectAllCustomers().size();
+        Customer update = new Customer();
+        update.setId(customer.getId());
+        update.setEmail("alexandro@gmail.com");
+        update.setVersion(0L);
+        // When
+        underTest.updateCustomer(update);
+        // Then
+        assertThat(underTest.selectAllCustomers()).hasSize(size);
+        assertThat(underTest.selectCustomerById(customer.getId())).hasValueSatisfying(c -> {
+            assertThat(c.getName()).isEqualTo("Alex");
+            assertThat(c.getEmail()).isEqualTo("alexandro@gmail.com");
+            assertThat(c.getVersion()).isEqualTo(1L);
+        });
+        assertThatThrownBy(() -> underTest.insertCustomer(new Customer("Aya", "alexandro@gmail.com", 22, Gender.FEMALE)))
+                .isInstanceOf(DuplicateResourceException.class);
+        assertEmailIsFree("alex@gmail.com");
+    }
+
+    @Test
+    void willThrowWhenUpdatingStaleVersion() {
+        // Given
+        Customer customer = new Customer("Alex", "alex@gmail.com", 20, Gender.MALE);
+        underTest.insertCustomer(customer);
+        Customer update = new Customer();
+        update.setId(customer.getId());
+        update.setAge(21);
+        update.setVersion(5L);
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.updateCustomer(update))
+                .isInstanceOf(StaleResourceException.class);
+    }
+
+    @Test
+    void returnedCustomersCannotChangeTheStore() {
+        // Given
+        Customer customer = new Customer("Alex", "alex@gmail.com", 20, Gender.MALE);
+        underTest.insertCustomer(customer);
+        // When
+        underTest.selectCustomerById(customer.getId()).orElseThrow().setName("Mutated");
+        // Then
+        assertThat(underTest.selectCustomerById(customer.getId()))
+                .hasValueSatisfying(c -> assertThat(c.getName()).isEqualTo("Alex"));
+    }
+
+    @Test
+    void deleteCustomerById() {
+        // Given
+        Customer customer = new Customer("Alex", "alex@gmail.com", 20, Gender.MALE);
+        underTest.insertCustomer(customer);
+        // When
+        underTest.deleteCustomerById(customer.getId());
+        // Then
+        assertThat(underTest.selectCustomerById(customer.getId())).isEqualTo(Optional.empty());
+        assertThatThrownBy(() -> underTest.deleteCustomerById(customer.getId()))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertEmailIsFree("alex@gmail.com");
+    }
+
+    @Test
+    void selectCustomersAfter() {
+        // Given
+        List<Customer> all = underTest.selectAllCustomers();
+        // When
+        List<Customer> page = underTest.selectCustomersAfter(all.get(0).getId(), 1);
+        // Then
+        assertThat(page).containsExactly(all.get(1));
+    }
+
+    @Test
+    void concurrentRegistrationsOfSameEmailCreateOneCustomer() {
+        // When
+        long created = IntStream.range(0, 1_000).parallel()
+                .filter(i -> {
+                    try {
+                        underTest.insertCustomer(new Customer("Alex", "alex-" + (i % 10) + "@gmail.com", 20, Gender.MALE));
+                        return true;
+                    } catch (DuplicateResourceException e) {
+                        return false;
+                    }
+                })
+                .count();
+        // Then
+        assertThat(created).isEqualTo(10);
+        assertThat(underTest.selectAllCustomers())
+                .extracting(Customer::getId)
+                .doesNotHaveDuplicates();
+    }
+
+    @Test
+    void searchCustomersTreatsLikeWildcardsLiterally() {
+        // Given
+        Customer underscore = new Customer("a_b", "a_b@gmail.com", 20, Gender.MALE);
+        underTest.insertCustomer(underscore);
+        underTest.insertCustomer(new Customer("axb", "axb@gmail.com", 20, Gender.MALE));
+        // When
+        List<Customer> found = underTest.searchCustomers(
+                new CustomerSearch(null, null, null, "A_", null), 0, 10);
+        // Then
+        assertThat(found).containsExactly(underscore);
+    }
+
+    @Test
+    void searchCustomersByNameRanksExactWordsBeforeSimilarOnes() {
+        // Given
+        Customer similar = new Customer("Alisson Smith", "alisson@gmail.com", 20, Gender.FEMALE);
+        Customer exact = new Customer("Alison Smith", "alison@gmail.com", 20, Gender.FEMALE);
+        underTest.insertCustomer(similar);
+        underTest.insertCustomer(exact);
+        underTest.insertCustomer(new Customer("Bob Jones", "bob@gmail.com", 20, Gender.MALE));
+        // When
+        List<Customer> found = underTest.searchCustomersByName("alison", 0, 10);
+        List<Customer> secondPage = underTest.searchCustomersByName("alison", 1, 10);
+        // Then
+        assertThat(found).containsExactly(exact, similar);
+        assertThat(secondPage).containsExactly(similar);
+    }
+
+    @Test
+    void revisionChangesOnEveryWrite() {
+        // Given
+        Customer customer = new Customer("Alex", "alex@gmail.com", 20, Gender.MALE);
+        long initial = underTest.selectCustomersRevision();
+        // When
+        underTest.insertCustomer(customer);
+        long afterInsert = underTest.selectCustomersRevision();
+        underTest.updateCustomer(new Customer(customer.getId(), null, null, 21, null));
+        long afterUpdate = underTest.selectCustomersRevision();
+        underTest.deleteCustomerById(customer.getId());
+        // Then
+        assertThat(afterInsert).isGreaterThan(initial);
+        assertThat(afterUpdate).isGreaterThan(afterInsert);
+        assertThat(underTest.selectCustomersRevision()).isGreaterThan(afterUpdate);
+        assertThat(underTest.selectCustomerVersion(customer.getId())).isEmpty();
+    }
+
+    private void assertEmailIsFree(String email) {
+        // a freed email can be taken by another customer
+        assertThatNoException().isThrownBy(
+                () -> underTest.insertCustomer(new Customer("Other", email, 30, Gender.FEMALE)));
+    }
+}
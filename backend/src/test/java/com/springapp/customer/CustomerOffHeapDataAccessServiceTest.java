@@ -0,0 +1,202 @@
+package com.springapp.customer;
+
+import com.springapp.exception.DuplicateResourceException;
+import com.springapp.exception.RequestValidationException;
+import com.springapp.exception.ResourceNotFoundException;
+import com.springapp.exception.StaleResourceException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerOffHeapDataAccessServiceTest {
+    private CustomerOffHeapDataAccessService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerOffHeapDataAccessService(16);
+    }
+
+    @Test
+    void insertAndSelectCustomerById() {
+        // Given
+        Customer customer = new Customer("Jamila Ünal", "jamila@gmail.com", 19, Gender.FEMALE);
+        // When
+        underTest.insertCustomer(customer);
+        // Then
+        assertThat(customer.getId()).isEqualTo(1L);
+        assertThat(underTest.selectCustomerById(customer.getId())).hasValueSatisfying(c -> {
+            assertThat(c).isEqualTo(customer);
+            assertThat(c.getVersion()).isZero();
+        });
+    }
+
+    @Test
+    void growsBeyondInitialCapacity() {
+        // Given
+        int count = 10_000;
+        // When
+        for (int i = 0; i < count; i++) {
+            underTest.insertCustomer(new Customer("Customer " + i, "customer-" + i + "@gmail.com", i % 90, Gender.MALE));
+        }
+        // Then
+        assertThat(underTest.selectAllCustomers()).hasSize(count);
+        assertThat(underTest.selectCustomerById((long) count)).hasValueSatisfying(c -> {
+            assertThat(c.getName()).isEqualTo("Customer " + (count - 1));
+            assertThat(c.getEmail()).isEqualTo("customer-" + (count - 1) + "@gmail.com");
+        });
+        assertThatThrownBy(() -> underTest.insertCustomer(new Customer("Aya", "customer-4242@gmail.com", 22, Gender.FEMALE)))
+                .isInstanceOf(DuplicateResourceException.class);
+    }
+
+    @Test
+    void willThrowWhenInsertingTakenEmail() {
+        // Given
+        underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 20, Gender.MALE));
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.insertCustomer(new Customer("Aya", "alex@gmail.com", 22, Gender.FEMALE)))
+                .isInstanceOf(DuplicateResourceException.class);
+    }
+
+    @Test
+    void updateCustomer() {
+        // Given
+        Customer customer = new Customer("Alex", "alex@gmail.com", 20, Gender.MALE);
+        underTest.insertCustomer(customer);
+        Customer update = new Customer();
+        update.setId(customer.getId());
+        update.setName("Alexandro");
+        update.setEmail("alexandro@gmail.com");
+        update.setVersion(0L);
+        // When
+        underTest.updateCustomer(update);
+        // Then
+        assertThat(underTest.selectCustomerById(customer.getId())).hasValueSatisfying(c -> {
+            assertThat(c.getName()).isEqualTo("Alexandro");
+            assertThat(c.getEmail()).isEqualTo("alexandro@gmail.com");
+            assertThat(c.getAge()).isEqualTo(20);
+            assertThat(c.getVersion()).isEqualTo(1L);
+        });
+        assertThatThrownBy(() -> underTest.updateCustomer(update))
+                .isInstanceOf(StaleResourceException.class);
+        assertEmailIsFree("alex@gmail.com");
+    }
+
+    @Test
+    void willThrowWhenUpdateHasNoChanges() {
+        // Given
+        Customer customer = new Customer("Alex", "alex@gmail.com", 20, Gender.MALE);
+        underTest.insertCustomer(customer);
+        Customer update = new Customer();
+        update.setId(customer.getId());
+        update.setAge(20);
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.updateCustomer(update))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("no data changes found");
+    }
+
+    @Test
+    void deleteCustomerById() {
+        // Given
+        Customer first = new Customer("Alex", "alex@gmail.com", 20, Gender.MALE);
+        Customer second = new Customer("Aya", "aya@gmail.com", 22, Gender.FEMALE);
+        underTest.insertCustomer(first);
+        underTest.insertCustomer(second);
+        // When
+        underTest.deleteCustomerById(first.getId());
+        // Then
+        assertThat(underTest.selectCustomerById(first.getId())).isEmpty();
+        assertThat(underTest.selectCustomersAfter(0, 10)).containsExactly(second);
+        assertThatThrownBy(() -> underTest.deleteCustomerById(first.getId()))
+                .isInstanceOf(ResourceNotFoundException.class);
+        underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 20, Gender.MALE));
+    }
+
+    @Test
+    void selectCustomersAfter() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            underTest.insertCustomer(new Customer("Customer " + i, "customer-" + i + "@gmail.com", 30, Gender.MALE));
+        }
+        // When
+        List<Customer> page = underTest.selectCustomersAfter(2, 2);
+        // Then
+        assertThat(page).extracting(Customer::getId).containsExactly(3L, 4L);
+    }
+
+    @Test
+    void searchCustomersFiltersOnEveryField() {
+        // Given
+        underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 20, Gender.MALE));
+        underTest.insertCustomer(new Customer("Alexa", "alexa@gmail.com", 31, Gender.FEMALE));
+        underTest.insertCustomer(new Customer("Aly", "aly@gmail.com", 35, Gender.FEMALE));
+        underTest.insertCustomer(new Customer("alexandra", "alexandra@yahoo.com", 40, Gender.FEMALE));
+        underTest.insertCustomer(new Customer("Alexia", "alexia@gmail.com", 33, Gender.FEMALE));
+        // When
+        List<Customer> found = underTest.searchCustomers(
+                new CustomerSearch(30, 40, Gender.FEMALE, "ALEX", "alex"), 0, 10);
+        List<Customer> afterFirst = underTest.searchCustomers(
+                new CustomerSearch(30, 40, Gender.FEMALE, "ALEX", "alex"), 2, 1);
+        // Then
+        assertThat(found).extracting(Customer::getId).containsExactly(2L, 4L, 5L);
+        assertThat(afterFirst).extracting(Customer::getId).containsExactly(4L);
+    }
+
+    @Test
+    void searchCustomersByNameMatchesPrefixesAndSimilarNames() {
+        // Given
+        underTest.insertCustomer(new Customer("Alison Smith", "alison@gmail.com", 20, Gender.FEMALE));
+        underTest.insertCustomer(new Customer("Bob Jones", "bob@gmail.com", 20, Gender.MALE));
+        underTest.insertCustomer(new Customer("Alisson Jones", "alisson@gmail.com", 20, Gender.FEMALE));
+        // When
+        List<Customer> byPrefix = underTest.searchCustomersByName("smi ali", 0, 10);
+        List<Customer> bySimilarity = underTest.searchCustomersByName("alison", 0, 10);
+        // Then
+        assertThat(byPrefix).extracting(Customer::getId).containsExactly(1L);
+        assertThat(bySimilarity).extracting(Customer::getId).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void selectCustomerVersionAndRevisionFollowWrites() {
+        // Given
+        Customer customer = new Customer("Alex", "alex@gmail.com", 20, Gender.MALE);
+        underTest.insertCustomer(customer);
+        long afterInsert = underTest.selectCustomersRevision();
+        // When
+        underTest.updateCustomer(new Customer(customer.getId(), "Alexander", null, null, null));
+        // Then
+        assertThat(underTest.selectCustomerVersion(customer.getId())).contains(1L);
+        assertThat(underTest.selectCustomersRevision()).isGreaterThan(afterInsert);
+        assertThat(underTest.selectCustomerVersion(99L)).isEmpty();
+    }
+
+    @Test
+    void arenaGrowthIsCappedBeforeItFails() {
+        // Given
+        int capacity = 1 << 30;
+        // When
+        // Then
+        assertThat(CustomerOffHeapDataAccessService.grownArenaCapacity(1024, 1025)).isEqualTo(2048);
+        assertThat(CustomerOffHeapDataAccessService.grownArenaCapacity(1024, 4096)).isEqualTo(4096);
+        assertThat(CustomerOffHeapDataAccessService.grownArenaCapacity(capacity, capacity + 1L))
+                .isEqualTo(CustomerOffHeapDataAccessService.MAX_ARENA_SIZE);
+        assertThatThrownBy(() -> CustomerOffHeapDataAccessService.grownArenaCapacity(
+                CustomerOffHeapDataAccessService.MAX_ARENA_SIZE,
+                CustomerOffHeapDataAccessService.MAX_ARENA_SIZE + 1L))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("off-heap customer arena is full");
+    }
+
+    private void assertEmailIsFree(String email) {
+        // a freed email can be taken by another customer
+        assertThatNoException().isThrownBy(
+                () -> underTest.insertCustomer(new Customer("Other", email, 30, Gender.FEMALE)));
+    }
+}
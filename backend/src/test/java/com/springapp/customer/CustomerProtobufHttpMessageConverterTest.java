@@ -0,0 +1,87 @@
+package com.springapp.customer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import static com.springapp.customer.CustomerProtobufHttpMessageConverter.PROTOBUF;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerProtobufHttpMessageConverterTest {
+    private static final Type CUSTOMERS = new ParameterizedTypeReference<List<Customer>>() {
+    }.getType();
+    private static final Type REGISTRATIONS = new ParameterizedTypeReference<List<CustomerRegistrationRequest>>() {
+    }.getType();
+    private final CustomerProtobufHttpMessageConverter underTest = new CustomerProtobufHttpMessageConverter();
+
+    @Test
+    void supportsOnlyTheCustomerTypesAsProtobuf() {
+        assertThat(underTest.canWrite(Customer.class, PROTOBUF)).isTrue();
+        assertThat(underTest.canWrite(CUSTOMERS, List.class, PROTOBUF)).isTrue();
+        assertThat(underTest.canRead(REGISTRATIONS, null, PROTOBUF)).isTrue();
+        assertThat(underTest.canRead(CustomerUpdateRequest.class, PROTOBUF)).isTrue();
+
+        assertThat(underTest.canWrite(Customer.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(underTest.canWrite(CustomerBatchResult.class, PROTOBUF)).isFalse();
+        Type strings = new ParameterizedTypeReference<List<String>>() {
+        }.getType();
+        assertThat(underTest.canWrite(strings, List.class, PROTOBUF)).isFalse();
+        assertThat(underTest.getSupportedMediaTypes(List.class)).containsExactly(PROTOBUF);
+    }
+
+    @Test
+    void customersRoundTrip() throws IOException {
+        // Given
+        Customer jamila = new Customer(1L, "Jamila", "jamila@gmail.com", 19, Gender.FEMALE);
+        jamila.setVersion(3L);
+        Customer ali = new Customer(2L, "Ali", "ali@gmail.com", 40, Gender.MALE);
+        ali.setVersion(0L);
+        List<Customer> customers = List.of(jamila, ali);
+
+        // When
+        @SuppressWarnings("unchecked")
+        List<Customer> actual = (List<Customer>) roundTrip(customers, CUSTOMERS);
+
+        // Then
+        assertThat(actual).isEqualTo(customers);
+        assertThat(actual).extracting(Customer::getVersion).containsExactly(3L, 0L);
+    }
+
+    @Test
+    void unsetFieldsReadBackAsNull() throws IOException {
+        // Given
+        CustomerUpdateRequest update = new CustomerUpdateRequest(null, null, 42, 7L);
+        CustomerRegistrationRequest registration = new CustomerRegistrationRequest("Ali", null, null, null);
+
+        // When
+        Object actualUpdate = roundTrip(update, CustomerUpdateRequest.class);
+        Object actualRegistration = roundTrip(List.of(registration), REGISTRATIONS);
+
+        // Then
+        assertThat(actualUpdate).isEqualTo(update);
+        assertThat(actualRegistration).isEqualTo(List.of(registration));
+    }
+
+    @Test
+    void malformedBodyIsNotReadable() {
+        MockHttpInputMessage input = new MockHttpInputMessage(new byte[]{(byte) 0x0a, (byte) 0xff});
+
+        assertThatThrownBy(() -> underTest.read(Customer.class, null, input))
+                .isInstanceOf(HttpMessageNotReadableException.class);
+    }
+
+    private Object roundTrip(Object body, Type type) throws IOException {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        underTest.write(body, type, PROTOBUF, output);
+        assertThat(output.getHeaders().getContentType()).isEqualTo(PROTOBUF);
+        return underTest.read(type, null, new MockHttpInputMessage(output.getBodyAsBytes()));
+    }
+}
@@ -0,0 +1,170 @@
+package com.springapp.customer;
+
+import com.springapp.exception.RequestValidationException;
+import com.springapp.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerRegistrationQueueTest {
+    private CustomerRegistrationQueue underTest;
+    @Mock
+    private CustomerDao customerDao;
+
+    private void start(int capacity) {
+        underTest = new CustomerRegistrationQueue(
+                customerDao,
+                capacity,
+                500,
+                1_000,
+                Duration.ofMinutes(1),
+                Duration.ofSeconds(10),
+                new SimpleMeterRegistry());
+        underTest.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if(underTest.isRunning()){
+            underTest.stop();
+        }
+    }
+
+    @Test
+    void stopDrainsQueuedRegistrations() {
+        // Given
+        start(10);
+        when(customerDao.insertCustomers(anyList())).thenAnswer(invocation -> {
+            List<Customer> customers = invocation.getArgument(0);
+            return customers.stream().map(c -> !c.getEmail().equals("taken@gmail.com")).toList();
+        });
+        CustomerRegistration alex = underTest.enqueue(request("alex@gmail.com"));
+        CustomerRegistration taken = underTest.enqueue(request("taken@gmail.com"));
+        // When
+        underTest.stop();
+        // Then
+        assertThat(alex.status()).isEqualTo(CustomerRegistration.Status.QUEUED);
+        assertThat(underTest.registration(alex.id()))
+                .get()
+                .extracting(CustomerRegistration::status)
+                .isEqualTo(CustomerRegistration.Status.CREATED);
+        assertThat(underTest.registration(taken.id()))
+                .get()
+                .extracting(CustomerRegistration::status)
+                .isEqualTo(CustomerRegistration.Status.DUPLICATE_EMAIL);
+    }
+
+    @Test
+    void sameEmailInOneBatchIsWrittenOnce() throws InterruptedException {
+        // Given
+        start(10);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(customerDao.insertCustomers(anyList())).thenAnswer(invocation -> {
+            List<Customer> customers = invocation.getArgument(0);
+            writing.countDown();
+            release.await();
+            return customers.stream().map(c -> true).toList();
+        });
+        underTest.enqueue(request("first@gmail.com"));
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        CustomerRegistration alex = underTest.enqueue(request("alex@gmail.com"));
+        CustomerRegistration again = underTest.enqueue(request("alex@gmail.com"));
+        // When
+        release.countDown();
+        underTest.stop();
+        // Then
+        assertThat(underTest.registration(alex.id()))
+                .get()
+                .extracting(CustomerRegistration::status)
+                .isEqualTo(CustomerRegistration.Status.CREATED);
+        assertThat(underTest.registration(again.id()))
+                .get()
+                .extracting(CustomerRegistration::status)
+                .isEqualTo(CustomerRegistration.Status.DUPLICATE_EMAIL);
+        verify(customerDao).insertCustomers(argThat(customers -> customers.size() == 1
+                && customers.get(0).getEmail().equals("alex@gmail.com")));
+    }
+
+    @Test
+    void fullQueueRejectsRegistration() throws InterruptedException {
+        // Given
+        start(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(customerDao.insertCustomers(anyList())).thenAnswer(invocation -> {
+            List<Customer> customers = invocation.getArgument(0);
+            writing.countDown();
+            release.await();
+            return customers.stream().map(c -> true).toList();
+        });
+        underTest.enqueue(request("first@gmail.com"));
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        underTest.enqueue(request("second@gmail.com"));
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.enqueue(request("third@gmail.com")))
+                .isInstanceOf(TooManyRequestsException.class)
+                .hasMessage("registration queue is full");
+        release.countDown();
+    }
+
+    @Test
+    void failedWriteIsReported() {
+        // Given
+        start(10);
+        when(customerDao.insertCustomers(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("database is down"));
+        CustomerRegistration registration = underTest.enqueue(request("alex@gmail.com"));
+        // When
+        underTest.stop();
+        // Then
+        assertThat(underTest.registration(registration.id()))
+                .get()
+                .extracting(CustomerRegistration::status)
+                .isEqualTo(CustomerRegistration.Status.FAILED);
+    }
+
+    @Test
+    void incompleteRegistrationIsRejected() {
+        // Given
+        start(10);
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest("Alex", "alex@gmail.com", null, Gender.MALE);
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.enqueue(request))
+                .isInstanceOf(RequestValidationException.class);
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void stoppedQueueRejectsRegistration() {
+        // Given
+        start(10);
+        underTest.stop();
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.enqueue(request("alex@gmail.com")))
+                .isInstanceOf(TooManyRequestsException.class)
+                .hasMessage("registration queue is stopped");
+    }
+
+    private static CustomerRegistrationRequest request(String email) {
+        return new CustomerRegistrationRequest("Alex", email, 20, Gender.MALE);
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.ApplicationContext;
 
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -29,58 +30,29 @@ class CustomerRepositoryTest extends AbstractTestcontainers {
     }
 
     @Test
-    void existsPersonWithEmail() {
+    void insertIfEmailAbsent() {
         // Given
         String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
-        Customer customer = new Customer(
-                FAKER.name().fullName(),
-                email,
-                20,
-                Gender.MALE);
-        underTest.save(customer);
         // When
-        var actual = underTest.existsCustomerByEmail(email);
+        Optional<Long> inserted = underTest.insertIfEmailAbsent(FAKER.name().fullName(), email, 20, "MALE");
+        Optional<Long> taken = underTest.insertIfEmailAbsent(FAKER.name().fullName(), email, 30, "FEMALE");
         // Then
-        assertThat(actual).isTrue();
-    }
-    @Test
-    void existsPersonWithEmailFailsWhenEmailNotPresent() {
-        // Given
-        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
-        // When
-        var actual = underTest.existsCustomerByEmail(email);
-        // Then
-        assertThat(actual).isFalse();
+        assertThat(inserted).hasValueSatisfying(id ->
+                assertThat(underTest.findById(id)).hasValueSatisfying(c -> assertThat(c.getAge()).isEqualTo(20)));
+        assertThat(taken).isEmpty();
     }
+
     @Test
-    void existsPersonWithId() {
+    void deleteReturningId() {
         // Given
         String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
-        Customer customer = new Customer(
-                FAKER.name().fullName(),
-                email,
-                20,
-                Gender.MALE);
-        underTest.save(customer);
-        Long id = underTest.findAll()
-                .stream()
-                .filter(c -> c.getEmail().equals(email))
-                .map(Customer::getId)
-                .findFirst()
-                .orElseThrow();
-        // When
-        var actual = underTest.existsCustomerById(id);
-        // Then
-        assertThat(actual).isTrue();
-    }
-    @Test
-    void existsPersonWithIdWhenIdNotPresent() {
-        // Given
-
-        var id = -1;
+        Long id = underTest.insertIfEmailAbsent(FAKER.name().fullName(), email, 20, "MALE").orElseThrow();
         // When
-        var actual = underTest.existsCustomerById((long)id);
+        Optional<Long> deleted = underTest.deleteReturningId(id);
+        Optional<Long> deletedAgain = underTest.deleteReturningId(id);
         // Then
-        assertThat(actual).isFalse();
+        assertThat(deleted).contains(id);
+        assertThat(deletedAgain).isEmpty();
+        assertThat(underTest.findById(id)).isEmpty();
     }
-}
\ No newline at end of file
+}
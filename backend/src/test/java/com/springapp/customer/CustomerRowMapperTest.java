@@ -20,6 +20,7 @@ class CustomerRowMapperTest {
         when(resultSet.getString("email")).thenReturn("jamila@gmail.com");
         when(resultSet.getInt("age")).thenReturn(19);
         when(resultSet.getString("gender")).thenReturn("FEMALE");
+        when(resultSet.getLong("version")).thenReturn(3L);
 
         // When
         Customer actual = customerRowMapper.mapRow(resultSet, 1);
@@ -28,5 +29,6 @@ class CustomerRowMapperTest {
                 (long)1,"Jamila","jamila@gmail.com",19,
                 Gender.FEMALE);
         assertThat(actual).isEqualTo(expected);
+        assertThat(actual.getVersion()).isEqualTo(3L);
     }
 }
\ No newline at end of file
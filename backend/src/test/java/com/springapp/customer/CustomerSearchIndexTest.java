@@ -0,0 +1,81 @@
+package com.springapp.customer;
+
+import com.springapp.AbstractTestcontainers;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Explains the search statements of {@link CustomerJDBCDataAccessService}
+ * against a million customers: every filter and the ranked name search have
+ * to be answered from an index, never by scanning the table, so search latency
+ * does not grow with it.
+ */
+class CustomerSearchIndexTest extends AbstractTestcontainers {
+    private static final int CUSTOMERS = 1_000_000;
+
+    @BeforeAll
+    static void seed() {
+        JdbcTemplate jdbcTemplate = getJdbcTemplate();
+        jdbcTemplate.update("""
+                INSERT INTO customer(name,email,age,gender)
+                SELECT substr(md5(i::text), 1, 10) || ' ' || substr(md5(i::text), 11, 10),
+                       'customer-' || i || '@example.com',
+                       18 + i % 80,
+                       CASE WHEN i % 2 = 0 THEN 'MALE' ELSE 'FEMALE' END
+                FROM generate_series(1, ?) AS i
+                """, CUSTOMERS);
+        jdbcTemplate.execute("ANALYZE customer");
+    }
+
+    static Stream<Arguments> searches() {
+        return Stream.of(
+                Arguments.of("name prefix", new CustomerSearch(null, null, null, "ab1", null), 0L),
+                Arguments.of("email prefix", new CustomerSearch(null, null, null, null, "customer-4242"), 0L),
+                Arguments.of("age range", new CustomerSearch(30, 31, null, null, null), 0L),
+                Arguments.of("gender and age", new CustomerSearch(30, 31, Gender.FEMALE, null, null), 0L),
+                Arguments.of("deep page", new CustomerSearch(30, 31, Gender.FEMALE, null, null), 900_000L),
+                Arguments.of("every filter", new CustomerSearch(20, 60, Gender.MALE, "a", "customer-1"), 0L)
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("searches")
+    void searchIsAnsweredFromAnIndex(String description, CustomerSearch search, long afterId) {
+        // Given
+        CustomerJDBCDataAccessService.SearchQuery query =
+                CustomerJDBCDataAccessService.searchQuery(search, afterId, CustomerService.MAX_PAGE_SIZE + 1);
+        // When
+        List<String> plan = getJdbcTemplate().queryForList(
+                "EXPLAIN " + query.sql(), String.class, query.args().toArray());
+        // Then
+        assertThat(String.join("\n", plan))
+                .contains("Index")
+                .doesNotContain("Seq Scan");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"c4ca4238a0", "c4ca4238a0 b923820dcc", "c4cb4238a0"})
+    void nameSearchIsAnsweredFromTheTextAndTrigramIndexes(String query) {
+        // Given
+        String tsQuery = NameSearch.prefixTsQuery(query);
+        // When
+        List<String> plan = getJdbcTemplate().queryForList(
+                "EXPLAIN " + CustomerJDBCDataAccessService.SEARCH_BY_NAME_SQL,
+                String.class,
+                tsQuery, query, tsQuery, query, CustomerService.MAX_PAGE_SIZE + 1, 0);
+        // Then
+        assertThat(String.join("\n", plan))
+                .contains("customer_name_search_idx")
+                .contains("customer_name_trgm_idx")
+                .doesNotContain("Seq Scan");
+    }
+}
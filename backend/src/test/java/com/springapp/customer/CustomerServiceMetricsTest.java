@@ -0,0 +1,48 @@
+package com.springapp.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerServiceMetricsTest {
+    private CustomerService underTest;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Mock
+    private CustomerDao customerDao;
+    @BeforeEach
+    void setUp() {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new CustomerService(customerDao));
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new CustomerServiceMetrics(meterRegistry));
+        underTest = proxyFactory.getProxy();
+    }
+
+    @Test
+    void serviceOperationIsTimedAndCountsReturnedCustomers() {
+        // Given
+        when(customerDao.selectCustomersAfter(0, 3)).thenReturn(List.of(
+                new Customer(1L, "Alex", "alex@gmail.com", 20, Gender.MALE),
+                new Customer(2L, "Aya", "aya@gmail.com", 22, Gender.FEMALE)));
+        // When
+        underTest.getCustomers(null, 2);
+        // Then
+        assertThat(meterRegistry.get("customer.service")
+                .tags("method", "getCustomers", "outcome", "success")
+                .timer()
+                .count()).isEqualTo(1);
+        assertThat(meterRegistry.get("customer.service.rows")
+                .tags("method", "getCustomers")
+                .counter()
+                .count()).isEqualTo(2);
+    }
+}
@@ -3,14 +3,19 @@ package com.springapp.customer;
 import com.springapp.exception.DuplicateResourceException;
 import com.springapp.exception.RequestValidationException;
 import com.springapp.exception.ResourceNotFoundException;
+import com.springapp.exception.StaleResourceException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -22,6 +27,8 @@ class CustomerServiceTest {
     private CustomerService underTest;
     @Mock
     private CustomerDao customerDao;
+    @Captor
+    private ArgumentCaptor<List<Customer>> customersCaptor;
     @BeforeEach
     void setUp() {
         underTest = new CustomerService(customerDao);
@@ -34,6 +41,116 @@ class CustomerServiceTest {
         verify(customerDao).selectAllCustomers();
     }
 
+    @Test
+    void getCustomersReturnsNextCursorWhenMoreRowsExist() {
+        // Given
+        List<Customer> customers = List.of(
+                new Customer(1L, "Alex", "alex@gmail.com", 20, Gender.MALE),
+                new Customer(2L, "Aya", "aya@gmail.com", 22, Gender.FEMALE),
+                new Customer(3L, "Ali", "ali@gmail.com", 24, Gender.MALE));
+        when(customerDao.selectCustomersAfter(0, 3)).thenReturn(customers);
+        // When
+        CustomerPage actual = underTest.getCustomers(null, 2);
+        // Then
+        assertThat(actual.customers()).containsExactly(customers.get(0), customers.get(1));
+        assertThat(actual.nextCursor()).isEqualTo(2L);
+    }
+
+    @Test
+    void getCustomersReturnsNoCursorOnLastPage() {
+        // Given
+        List<Customer> customers = List.of(
+                new Customer(5L, "Alex", "alex@gmail.com", 20, Gender.MALE));
+        when(customerDao.selectCustomersAfter(4, 3)).thenReturn(customers);
+        // When
+        CustomerPage actual = underTest.getCustomers(4L, 2);
+        // Then
+        assertThat(actual.customers()).containsExactly(customers.get(0));
+        assertThat(actual.nextCursor()).isNull();
+    }
+
+    @Test
+    void willThrowWhenPageLimitOutOfRange() {
+        // When
+        assertThatThrownBy(()->underTest.getCustomers(null, 0))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("limit must be between 1 and %s".formatted(CustomerService.MAX_PAGE_SIZE));
+        // Then
+        verify(customerDao, never()).selectCustomersAfter(anyLong(), anyInt());
+    }
+
+    @Test
+    void searchCustomersReturnsNextCursorWhenMoreRowsExist() {
+        // Given
+        CustomerSearch search = new CustomerSearch(20, 30, Gender.MALE, "al", null);
+        List<Customer> customers = List.of(
+                new Customer(1L, "Alex", "alex@gmail.com", 20, Gender.MALE),
+                new Customer(3L, "Ali", "ali@gmail.com", 24, Gender.MALE));
+        when(customerDao.searchCustomers(search, 0, 2)).thenReturn(customers);
+        // When
+        CustomerPage actual = underTest.searchCustomers(search, null, 1);
+        // Then
+        assertThat(actual.customers()).containsExactly(customers.get(0));
+        assertThat(actual.nextCursor()).isEqualTo(1L);
+    }
+
+    @Test
+    void willThrowWhenSearchAgeRangeIsInverted() {
+        // Given
+        CustomerSearch search = new CustomerSearch(40, 30, null, null, null);
+        // When
+        assertThatThrownBy(()->underTest.searchCustomers(search, null, 10))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("minAge must not be greater than maxAge");
+        // Then
+        verify(customerDao, never()).searchCustomers(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void searchCustomersByNameReturnsNextOffsetWhenMoreMatchesExist() {
+        // Given
+        List<Customer> customers = List.of(
+                new Customer(7L, "Alison", "alison@gmail.com", 20, Gender.FEMALE),
+                new Customer(3L, "Alisn", "alisn@gmail.com", 24, Gender.FEMALE));
+        when(customerDao.searchCustomersByName("alison", 10, 2)).thenReturn(customers);
+        // When
+        CustomerPage actual = underTest.searchCustomersByName("alison", 10, 1);
+        // Then
+        assertThat(actual.customers()).containsExactly(customers.get(0));
+        assertThat(actual.nextCursor()).isEqualTo(11L);
+    }
+
+    @Test
+    void willThrowWhenNameQueryHasNoWords() {
+        // When
+        assertThatThrownBy(()->underTest.searchCustomersByName(" %*' ", 0, 10))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("query must contain a letter or a digit");
+        // Then
+        verify(customerDao, never()).searchCustomersByName(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void willThrowWhenNameQueryWordsAreTooShort() {
+        // When
+        assertThatThrownBy(()->underTest.searchCustomersByName("a b", 0, 10))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("query must contain a word of at least %s letters or digits"
+                        .formatted(CustomerService.MIN_SEARCH_WORD_LENGTH));
+        // Then
+        verify(customerDao, never()).searchCustomersByName(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void exportCustomers() {
+        // Given
+        Consumer<Customer> consumer = customer -> {};
+        // When
+        underTest.exportCustomers(consumer);
+        // Then
+        verify(customerDao).streamAllCustomers(consumer);
+    }
+
     @Test
     void canGetCustomerById() {
         // Given
@@ -61,16 +178,27 @@ class CustomerServiceTest {
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("customer with id [%s] not found".formatted(id));
     }
+    @Test
+    void willThrowWhenGetCustomerVersionOfMissingCustomer() {
+        // Given
+        long id = 10;
+        when(customerDao.selectCustomerVersion(id)).thenReturn(Optional.empty());
+        // When
+        // Then
+        assertThatThrownBy(()->underTest.getCustomerVersion(id))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("customer with id [%s] not found".formatted(id));
+    }
+
     @Test
     void addCustomer() {
         // Given
         String email = "alex@gmail.com";
-        when(customerDao.existsCustomerWithEmail(email)).thenReturn(false);
         CustomerRegistrationRequest customer = new CustomerRegistrationRequest(
                 "alex",
                 email,
                 60,
-                Gender.MALE
+                Gender.FEMALE
         );
         // When
         underTest.addCustomer(customer);
@@ -82,12 +210,30 @@ class CustomerServiceTest {
         assertThat(capturedCustomer.getName()).isEqualTo(customer.name());
         assertThat(capturedCustomer.getEmail()).isEqualTo(customer.email());
         assertThat(capturedCustomer.getAge()).isEqualTo(customer.age());
+        assertThat(capturedCustomer.getGender()).isEqualTo(Gender.FEMALE);
+    }
+    @Test
+    void willThrowWhenAddingIncompleteCustomer() {
+        // Given
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(
+                "alex",
+                "alex@gmail.com",
+                60,
+                null
+        );
+        // When
+        assertThatThrownBy(()-> underTest.addCustomer(request))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("name, email, age and gender are required");
+        // Then
+        verify(customerDao, never()).insertCustomer(any());
     }
     @Test
     void wilThrowWhenEmailExistsWhileAddingCustomer() {
         // Given
         String email = "alex@gmail.com";
-        when(customerDao.existsCustomerWithEmail(email)).thenReturn(true);
+        doThrow(new DuplicateResourceException("email already taken"))
+                .when(customerDao).insertCustomer(any());
         CustomerRegistrationRequest request = new CustomerRegistrationRequest(
                 "alex",
                 email,
@@ -99,14 +245,59 @@ class CustomerServiceTest {
                 .isInstanceOf(DuplicateResourceException.class)
                         .hasMessage("email already taken");
         // Then
-        verify(customerDao, never()).insertCustomer(any());
+    }
+
+    @Test
+    void addCustomersReportsPerItemResult() {
+        // Given
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("alex", "alex@gmail.com", 60, Gender.MALE),
+                new CustomerRegistrationRequest("aya", "aya@gmail.com", 20, Gender.FEMALE),
+                new CustomerRegistrationRequest("alex", "alex@gmail.com", 61, Gender.MALE),
+                new CustomerRegistrationRequest("ali", null, 30, Gender.MALE)
+        );
+        when(customerDao.insertCustomers(anyList())).thenReturn(List.of(true, false));
+        // When
+        List<CustomerBatchResult> actual = underTest.addCustomers(requests);
+        // Then
+        verify(customerDao).insertCustomers(customersCaptor.capture());
+        assertThat(customersCaptor.getValue())
+                .extracting(Customer::getEmail)
+                .containsExactly("alex@gmail.com", "aya@gmail.com");
+        assertThat(customersCaptor.getValue().get(1).getGender()).isEqualTo(Gender.FEMALE);
+        assertThat(actual).containsExactly(
+                new CustomerBatchResult(0, "alex@gmail.com", CustomerBatchResult.Status.CREATED),
+                new CustomerBatchResult(1, "aya@gmail.com", CustomerBatchResult.Status.DUPLICATE_EMAIL),
+                new CustomerBatchResult(2, "alex@gmail.com", CustomerBatchResult.Status.DUPLICATE_EMAIL),
+                new CustomerBatchResult(3, null, CustomerBatchResult.Status.INVALID)
+        );
+    }
+
+    @Test
+    void addCustomersReportsNullItemAsInvalid() {
+        // Given
+        List<CustomerRegistrationRequest> requests = Arrays.asList(
+                null,
+                new CustomerRegistrationRequest("aya", "aya@gmail.com", 20, Gender.FEMALE)
+        );
+        when(customerDao.insertCustomers(anyList())).thenReturn(List.of(true));
+        // When
+        List<CustomerBatchResult> actual = underTest.addCustomers(requests);
+        // Then
+        verify(customerDao).insertCustomers(customersCaptor.capture());
+        assertThat(customersCaptor.getValue())
+                .extracting(Customer::getEmail)
+                .containsExactly("aya@gmail.com");
+        assertThat(actual).containsExactly(
+                new CustomerBatchResult(0, null, CustomerBatchResult.Status.INVALID),
+                new CustomerBatchResult(1, "aya@gmail.com", CustomerBatchResult.Status.CREATED)
+        );
     }
 
     @Test
     void deleteCustomerById() {
         // Given
         long id = 1;
-        when(customerDao.existsCustomerById(id)).thenReturn(true);
         // When
         underTest.deleteCustomerById(id);
         // Then
@@ -116,34 +307,27 @@ class CustomerServiceTest {
     void willThrowDeleteCustomerByIdNotExists() {
         // Given
         long id = -1;
-        when(customerDao.existsCustomerById(id)).thenReturn(false);
+        doThrow(new ResourceNotFoundException("customer with id [%s] not found".formatted(id)))
+                .when(customerDao).deleteCustomerById(id);
         // When
         assertThatThrownBy(()-> underTest.deleteCustomerById(id))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessageContaining("customer with id [%s] not found".formatted(id));
         // Then
-        verify(customerDao, never()).deleteCustomerById(id);
     }
 
     @Test
     void canUpdateAllCustomerProperties() {
         // Given
         long id = 1;
-        Customer customer = new Customer(
-                id,
-                "Alex",
-                "alex@gmail.com",
-                60,
-                Gender.MALE);
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-        // When
         String newEmail = "alexandro@gmail.com";
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
                 "Alexandro",
                 newEmail,
-                25
+                25,
+                3L
         );
-        // when(customerDao.existsCustomerWithEmail(newEmail)).thenReturn(false);
+        // When
         underTest.updateCustomer(
                 id,
                 updateRequest
@@ -154,27 +338,23 @@ class CustomerServiceTest {
         verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
         Customer capturedCustomer = customerArgumentCaptor.getValue();
 
+        assertThat(capturedCustomer.getId()).isEqualTo(id);
         assertThat(capturedCustomer.getName()).isEqualTo(updateRequest.name());
         assertThat(capturedCustomer.getEmail()).isEqualTo(updateRequest.email());
         assertThat(capturedCustomer.getAge()).isEqualTo(updateRequest.age());
+        assertThat(capturedCustomer.getVersion()).isEqualTo(updateRequest.version());
+        verify(customerDao, never()).selectCustomerById(any());
     }
     @Test
     void canUpdateOnlyCustomerName() {
         // Given
         long id = 1;
-        Customer customer = new Customer(
-                id,
-                "Alex",
-                "alex@gmail.com",
-                60,
-                Gender.MALE);
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-        // When
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
                 "Alexandro",
                 null,
                 null
         );
+        // When
         underTest.updateCustomer(
                 id,
                 updateRequest
@@ -186,27 +366,21 @@ class CustomerServiceTest {
         Customer capturedCustomer = customerArgumentCaptor.getValue();
 
         assertThat(capturedCustomer.getName()).isEqualTo(updateRequest.name());
-        assertThat(capturedCustomer.getEmail()).isEqualTo(customer.getEmail());
-        assertThat(capturedCustomer.getAge()).isEqualTo(customer.getAge());
+        assertThat(capturedCustomer.getEmail()).isNull();
+        assertThat(capturedCustomer.getAge()).isNull();
+        assertThat(capturedCustomer.getVersion()).isNull();
     }
     @Test
     void canUpdateOnlyCustomerEmail() {
         // Given
         long id = 1;
-        Customer customer = new Customer(
-                id,
-                "Alex",
-                "alex@gmail.com",
-                60,
-                Gender.MALE);
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-        // When
         String email = "alexandro@gmail.com";
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
                 null,
                 email,
                 null
         );
+        // When
         underTest.updateCustomer(
                 id,
                 updateRequest
@@ -217,27 +391,20 @@ class CustomerServiceTest {
         verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
         Customer capturedCustomer = customerArgumentCaptor.getValue();
 
-        assertThat(capturedCustomer.getName()).isEqualTo(customer.getName());
+        assertThat(capturedCustomer.getName()).isNull();
         assertThat(capturedCustomer.getEmail()).isEqualTo(updateRequest.email());
-        assertThat(capturedCustomer.getAge()).isEqualTo(customer.getAge());
+        assertThat(capturedCustomer.getAge()).isNull();
     }
     @Test
     void canUpdateOnlyCustomerAge() {
         // Given
         long id = 1;
-        Customer customer = new Customer(
-                id,
-                "Alex",
-                "alex@gmail.com",
-                60,
-                Gender.MALE);
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-        // When
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
                 null,
                 null,
                 30
         );
+        // When
         underTest.updateCustomer(
                 id,
                 updateRequest
@@ -248,51 +415,54 @@ class CustomerServiceTest {
         verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
         Customer capturedCustomer = customerArgumentCaptor.getValue();
 
-        assertThat(capturedCustomer.getName()).isEqualTo(customer.getName());
-        assertThat(capturedCustomer.getEmail()).isEqualTo(customer.getEmail());
+        assertThat(capturedCustomer.getName()).isNull();
+        assertThat(capturedCustomer.getEmail()).isNull();
         assertThat(capturedCustomer.getAge()).isEqualTo(updateRequest.age());
     }
     @Test
     void willThrowWhenTryingToUpdateEmailWhenAlreadyTaken() {
         // Given
         long id = 1;
-        Customer customer = new Customer(
-                id,
-                "Alex",
-                "alex@gmail.com",
-                60,
-                Gender.MALE);
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
         String newEmail = "alexandro@gmail.com";
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
                 null,
                 newEmail,
                 null
         );
-        when(customerDao.existsCustomerWithEmail(newEmail)).thenReturn(true);
+        doThrow(new DuplicateResourceException("email already taken"))
+                .when(customerDao).updateCustomer(any());
         // When
+        // Then
         assertThatThrownBy(()->underTest.updateCustomer(id,updateRequest))
                 .isInstanceOf(DuplicateResourceException.class)
                         .hasMessage("email already taken");
+    }
+    @Test
+    void willThrowWhenUpdatingStaleVersion() {
+        // Given
+        long id = 1;
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
+                "Alexandro",
+                null,
+                null,
+                1L
+        );
+        doThrow(new StaleResourceException("customer with id [%s] was modified concurrently".formatted(id)))
+                .when(customerDao).updateCustomer(any());
+        // When
         // Then
-
-        verify(customerDao,never()).updateCustomer(any());
+        assertThatThrownBy(()->underTest.updateCustomer(id,updateRequest))
+                .isInstanceOf(StaleResourceException.class)
+                .hasMessage("customer with id [%s] was modified concurrently".formatted(id));
     }
     @Test
     void willThrowWhenCustomerUpdateHasNoChanges() {
         // Given
         long id = 1;
-        Customer customer = new Customer(
-                id,
-                "Alex",
-                "alex@gmail.com",
-                60,
-                Gender.MALE);
-        when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
-                customer.getName(),
-                customer.getEmail(),
-                customer.getAge()
+                null,
+                null,
+                null
         );
         // When
         assertThatThrownBy(()->underTest.updateCustomer(id,updateRequest))
@@ -302,4 +472,4 @@ class CustomerServiceTest {
 
         verify(customerDao,never()).updateCustomer(any());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,42 @@
+package com.springapp.customer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongIntHashMapTest {
+
+    @Test
+    void behavesLikeAMapUnderRandomOperations() {
+        // Given
+        LongIntHashMap underTest = new LongIntHashMap(4);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        // When
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2_000);
+            int value = random.nextInt(1_000);
+            if(random.nextBoolean()){
+                Integer previous = expected.putIfAbsent(key, value);
+                assertThat(underTest.putIfAbsent(key, value))
+                        .isEqualTo(previous == null ? LongIntHashMap.NO_VALUE : previous);
+            } else {
+                Integer current = expected.get(key);
+                boolean removed = current != null && current == value;
+                if(removed){
+                    expected.remove(key);
+                }
+                assertThat(underTest.remove(key, value)).isEqualTo(removed);
+            }
+        }
+        // Then
+        assertThat(underTest.size()).isEqualTo(expected.size());
+        for (long key = 0; key < 2_000; key++) {
+            assertThat(underTest.get(key)).isEqualTo(expected.getOrDefault(key, LongIntHashMap.NO_VALUE));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.springapp.customer;
+
+import com.springapp.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MeteredCustomerDaoTest {
+    private MeteredCustomerDao underTest;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Mock
+    private CustomerDao delegate;
+    @BeforeEach
+    void setUp() {
+        underTest = new MeteredCustomerDao(delegate, "jdbc", meterRegistry);
+    }
+
+    @Test
+    void selectAllCustomersIsTimedAndCountsRows() {
+        // Given
+        List<Customer> customers = List.of(
+                new Customer(1L, "Alex", "alex@gmail.com", 20, Gender.MALE),
+                new Customer(2L, "Aya", "aya@gmail.com", 22, Gender.FEMALE));
+        when(delegate.selectAllCustomers()).thenReturn(customers);
+        // When
+        List<Customer> actual = underTest.selectAllCustomers();
+        // Then
+        assertThat(actual).isSameAs(customers);
+        assertThat(meterRegistry.get("customer.dao")
+                .tags("dao", "jdbc", "method", "selectAllCustomers", "outcome", "success")
+                .timer()
+                .count()).isEqualTo(1);
+        assertThat(meterRegistry.get("customer.dao.rows")
+                .tags("dao", "jdbc", "method", "selectAllCustomers")
+                .counter()
+                .count()).isEqualTo(2);
+    }
+
+    @Test
+    void streamAllCustomersCountsStreamedRows() {
+        // Given
+        doAnswer(invocation -> {
+            Consumer<Customer> consumer = invocation.getArgument(0);
+            consumer.accept(new Customer(1L, "Alex", "alex@gmail.com", 20, Gender.MALE));
+            consumer.accept(new Customer(2L, "Aya", "aya@gmail.com", 22, Gender.FEMALE));
+            return null;
+        }).when(delegate).streamAllCustomers(any());
+        List<Customer> streamed = new ArrayList<>();
+        // When
+        underTest.streamAllCustomers(streamed::add);
+        // Then
+        assertThat(streamed).hasSize(2);
+        assertThat(meterRegistry.get("customer.dao.rows")
+                .tags("dao", "jdbc", "method", "streamAllCustomers")
+                .counter()
+                .count()).isEqualTo(2);
+    }
+
+    @Test
+    void failedCallIsCountedByException() {
+        // Given
+        long id = 10;
+        doThrow(new ResourceNotFoundException("customer with id [%s] not found".formatted(id)))
+                .when(delegate).deleteCustomerById(id);
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.deleteCustomerById(id))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(meterRegistry.get("customer.dao.errors")
+                .tags("dao", "jdbc", "method", "deleteCustomerById", "exception", "ResourceNotFoundException")
+                .counter()
+                .count()).isEqualTo(1);
+        assertThat(meterRegistry.get("customer.dao")
+                .tags("method", "deleteCustomerById", "outcome", "error")
+                .timer()
+                .count()).isEqualTo(1);
+        assertThat(meterRegistry.get("customer.dao.rows")
+                .tags("method", "deleteCustomerById")
+                .counter()
+                .count()).isZero();
+    }
+}
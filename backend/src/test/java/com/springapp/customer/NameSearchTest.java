@@ -0,0 +1,37 @@
+package com.springapp.customer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NameSearchTest {
+
+    @Test
+    void prefixTsQueryKeepsOnlyLettersAndDigits() {
+        // When
+        String tsQuery = NameSearch.prefixTsQuery("  O'Brien & Ali | !x:* ");
+        // Then
+        assertThat(tsQuery).isEqualTo("o:* & brien:* & ali:* & x:*");
+    }
+
+    @Test
+    void scoresPrefixesAndTyposAboveThreshold() {
+        // Then
+        assertThat(NameSearch.score(List.of("ali"), "Alison Smith"))
+                .isGreaterThanOrEqualTo(NameSearch.WORD_SIMILARITY_THRESHOLD);
+        assertThat(NameSearch.score(NameSearch.words("alisn smith"), "Alison Smith"))
+                .isGreaterThanOrEqualTo(NameSearch.WORD_SIMILARITY_THRESHOLD);
+        assertThat(NameSearch.score(NameSearch.words("Alison Smith"), "alison smith"))
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void scoresUnrelatedNamesBelowThreshold() {
+        // Then
+        assertThat(NameSearch.score(List.of("bob"), "Alison Smith"))
+                .isLessThan(NameSearch.WORD_SIMILARITY_THRESHOLD);
+        assertThat(NameSearch.score(List.of(), "Alison Smith")).isZero();
+    }
+}
@@ -0,0 +1,181 @@
+package com.springapp.customer;
+
+import com.springapp.exception.DuplicateResourceException;
+import com.springapp.exception.RequestValidationException;
+import com.springapp.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveCustomerServiceTest {
+    private ReactiveCustomerService underTest;
+    @Mock
+    private ReactiveCustomerDao customerDao;
+    @BeforeEach
+    void setUp() {
+        underTest = new ReactiveCustomerService(customerDao);
+    }
+
+    @Test
+    void getCustomersReturnsNextCursorWhenMoreRowsExist() {
+        // Given
+        List<Customer> customers = List.of(
+                new Customer(1L, "Alex", "alex@gmail.com", 20, Gender.MALE),
+                new Customer(2L, "Aya", "aya@gmail.com", 22, Gender.FEMALE),
+                new Customer(3L, "Ali", "ali@gmail.com", 24, Gender.MALE));
+        when(customerDao.selectCustomersAfter(0, 3)).thenReturn(Flux.fromIterable(customers));
+        // When
+        CustomerPage actual = underTest.getCustomers(null, 2).block();
+        // Then
+        assertThat(actual.customers()).containsExactly(customers.get(0), customers.get(1));
+        assertThat(actual.nextCursor()).isEqualTo(2L);
+    }
+
+    @Test
+    void getCustomersReturnsNoCursorOnLastPage() {
+        // Given
+        Customer customer = new Customer(5L, "Alex", "alex@gmail.com", 20, Gender.MALE);
+        when(customerDao.selectCustomersAfter(4, 3)).thenReturn(Flux.just(customer));
+        // When
+        CustomerPage actual = underTest.getCustomers(4L, 2).block();
+        // Then
+        assertThat(actual.customers()).containsExactly(customer);
+        assertThat(actual.nextCursor()).isNull();
+    }
+
+    @Test
+    void getCustomersRejectsLimitAboveMaximum() {
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getCustomers(null, CustomerService.MAX_PAGE_SIZE + 1).block())
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("limit must be between 1 and %s".formatted(CustomerService.MAX_PAGE_SIZE));
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void exportCustomersStreamsAllCustomers() {
+        // Given
+        Customer customer = new Customer(1L, "Alex", "alex@gmail.com", 20, Gender.MALE);
+        when(customerDao.selectAllCustomers()).thenReturn(Flux.just(customer));
+        // When
+        List<Customer> actual = underTest.exportCustomers().collectList().block();
+        // Then
+        assertThat(actual).containsExactly(customer);
+        verify(customerDao, never()).selectCustomersAfter(anyLong(), anyInt());
+    }
+
+    @Test
+    void willThrowWhenGetCustomerReturnsEmpty() {
+        // Given
+        long id = 10;
+        when(customerDao.selectCustomerById(id)).thenReturn(Mono.empty());
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getCustomerById(id).block())
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("customer with id [%s] not found".formatted(id));
+    }
+
+    @Test
+    void addCustomerKeepsRequestedGender() {
+        // Given
+        when(customerDao.insertCustomer(any())).thenReturn(Mono.just(true));
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(
+                "Aya", "aya@gmail.com", 22, Gender.FEMALE);
+        // When
+        underTest.addCustomer(request).block();
+        // Then
+        ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
+        verify(customerDao).insertCustomer(customerArgumentCaptor.capture());
+        assertThat(customerArgumentCaptor.getValue().getGender()).isEqualTo(Gender.FEMALE);
+    }
+
+    @Test
+    void willThrowWhenAddingIncompleteCustomer() {
+        // Given
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(
+                "Aya", "aya@gmail.com", null, Gender.FEMALE);
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.addCustomer(request).block())
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("name, email, age and gender are required");
+        verifyNoInteractions(customerDao);
+    }
+
+    @Test
+    void willThrowWhenEmailExistsWhileAddingCustomer() {
+        // Given
+        when(customerDao.insertCustomer(any())).thenReturn(Mono.just(false));
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(
+                "Alex", "alex@gmail.com", 19, Gender.MALE);
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.addCustomer(request).block())
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("email already taken");
+    }
+
+    @Test
+    void addCustomersReportsOutcomePerRequest() {
+        // Given
+        when(customerDao.insertCustomers(any())).thenReturn(Mono.just(List.of(true, false)));
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("Alex", "alex@gmail.com", 19, Gender.MALE),
+                new CustomerRegistrationRequest("Aya", null, 22, Gender.FEMALE),
+                new CustomerRegistrationRequest("Ali", "alex@gmail.com", 24, Gender.MALE),
+                new CustomerRegistrationRequest("Sara", "sara@gmail.com", 30, Gender.FEMALE));
+        // When
+        List<CustomerBatchResult> actual = underTest.addCustomers(requests).block();
+        // Then
+        assertThat(actual).containsExactly(
+                new CustomerBatchResult(0, "alex@gmail.com", CustomerBatchResult.Status.CREATED),
+                new CustomerBatchResult(1, null, CustomerBatchResult.Status.INVALID),
+                new CustomerBatchResult(2, "alex@gmail.com", CustomerBatchResult.Status.DUPLICATE_EMAIL),
+                new CustomerBatchResult(3, "sara@gmail.com", CustomerBatchResult.Status.DUPLICATE_EMAIL));
+    }
+
+    @Test
+    void willThrowWhenDeletingMissingCustomer() {
+        // Given
+        long id = 10;
+        when(customerDao.deleteCustomerById(id)).thenReturn(Mono.just(false));
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.deleteCustomerById(id).block())
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("customer with id [%s] not found".formatted(id));
+    }
+
+    @Test
+    void updateCustomerPassesProvidedFieldsAndVersion() {
+        // Given
+        long id = 10;
+        when(customerDao.updateCustomer(any())).thenReturn(Mono.empty());
+        CustomerUpdateRequest request = new CustomerUpdateRequest("Alex", null, null, 3L);
+        // When
+        underTest.updateCustomer(id, request).block();
+        // Then
+        ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
+        verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
+        Customer update = customerArgumentCaptor.getValue();
+        assertThat(update.getId()).isEqualTo(id);
+        assertThat(update.getName()).isEqualTo("Alex");
+        assertThat(update.getEmail()).isNull();
+        assertThat(update.getVersion()).isEqualTo(3L);
+    }
+}
@@ -0,0 +1,186 @@
+package com.springapp.idempotency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.servlet.error.DefaultErrorAttributes;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyFilterTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final IdempotencyFilter underTest = new IdempotencyFilter(
+            new InMemoryIdempotencyStore(100, Duration.ofMinutes(1)),
+            Duration.ofMillis(100),
+            "X-API-Key",
+            new DefaultErrorAttributes(),
+            meterRegistry);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void retryIsAnsweredFromTheStore() throws Exception {
+        // Given
+        FilterChain chain = respondWith(201, "{\"index\":0}");
+        MockHttpServletResponse first = send(post("key", "[{}]"), chain);
+        // When
+        MockHttpServletResponse retry = send(post("key", "[{}]"), chain);
+        // Then
+        assertThat(calls).hasValue(1);
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(retry.getContentAsString()).isEqualTo(first.getContentAsString()).isEqualTo("{\"index\":0}");
+        assertThat(retry.getContentType()).isEqualTo("application/json");
+        assertThat(retry.getHeader(IdempotencyFilter.IDEMPOTENT_REPLAYED)).isEqualTo("true");
+        assertThat(first.getHeader(IdempotencyFilter.IDEMPOTENT_REPLAYED)).isNull();
+    }
+
+    @Test
+    void headersSetByTheRequestAreReplayed() throws Exception {
+        // Given
+        FilterChain chain = (request, response) -> {
+            calls.incrementAndGet();
+            HttpServletResponse http = (HttpServletResponse) response;
+            http.setStatus(202);
+            http.setHeader("Location", "/api/v1/customers/registrations/1");
+            http.addHeader("Vary", "Accept");
+        };
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        // set before the filter, as the CORS filter does
+        first.setHeader("Access-Control-Allow-Origin", "http://localhost:5173");
+        underTest.doFilter(post("key", "{}"), first, chain);
+        // When
+        MockHttpServletResponse retry = send(post("key", "{}"), chain);
+        // Then
+        assertThat(calls).hasValue(1);
+        assertThat(retry.getStatus()).isEqualTo(202);
+        assertThat(retry.getHeader("Location")).isEqualTo("/api/v1/customers/registrations/1");
+        assertThat(retry.getHeaders("Vary")).containsExactly("Accept");
+        assertThat(retry.getHeader("Access-Control-Allow-Origin")).isNull();
+    }
+
+    @Test
+    void errorIsReplayedThroughTheErrorPage() throws Exception {
+        // Given
+        FilterChain chain = (request, response) -> {
+            calls.incrementAndGet();
+            ((HttpServletResponse) response).sendError(409, "email already taken");
+        };
+        send(post("key", "{}"), chain);
+        // When
+        MockHttpServletResponse retry = send(post("key", "{}"), chain);
+        // Then
+        assertThat(calls).hasValue(1);
+        assertThat(retry.getStatus()).isEqualTo(409);
+        assertThat(retry.getErrorMessage()).isEqualTo("email already taken");
+    }
+
+    @Test
+    void keyReusedForAnotherBodyIsRejected() throws Exception {
+        // Given
+        FilterChain chain = respondWith(200, "");
+        send(post("key", "{\"age\":30}"), chain);
+        // When
+        MockHttpServletResponse reuse = send(post("key", "{\"age\":31}"), chain);
+        // Then
+        assertThat(calls).hasValue(1);
+        assertThat(reuse.getStatus()).isEqualTo(422);
+    }
+
+    @Test
+    void serverErrorIsNotRecorded() throws Exception {
+        // Given
+        send(post("key", "{}"), respondWith(503, ""));
+        // When
+        MockHttpServletResponse retry = send(post("key", "{}"), respondWith(200, "done"));
+        // Then
+        assertThat(calls).hasValue(2);
+        assertThat(retry.getContentAsString()).isEqualTo("done");
+        assertThat(meterRegistry.get("idempotency.requests").tag("outcome", "released").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void tooManyRequestsIsNotRecorded() throws Exception {
+        // Given
+        send(post("key", "{}"), respondWith(429, ""));
+        // When
+        MockHttpServletResponse retry = send(post("key", "{}"), respondWith(202, "queued"));
+        // Then
+        assertThat(calls).hasValue(2);
+        assertThat(retry.getStatus()).isEqualTo(202);
+        assertThat(retry.getContentAsString()).isEqualTo("queued");
+    }
+
+    @Test
+    void requestsWithoutAKeyOrThatOnlyReadPassThrough() throws Exception {
+        // Given
+        FilterChain chain = respondWith(200, "");
+        MockHttpServletRequest get = new MockHttpServletRequest("GET", "/api/v1/customers");
+        get.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY, "key");
+        // When
+        send(get, chain);
+        send(get, chain);
+        send(post(null, "{}"), chain);
+        send(post(null, "{}"), chain);
+        // Then
+        assertThat(calls).hasValue(4);
+    }
+
+    @Test
+    void sameKeyFromAnotherClientRunsAgain() throws Exception {
+        // Given
+        FilterChain chain = respondWith(201, "{\"index\":0}");
+        MockHttpServletRequest first = post("key", "[{}]");
+        first.addHeader("X-API-Key", "first-client");
+        send(first, chain);
+        MockHttpServletRequest other = post("key", "[{}]");
+        other.addHeader("X-API-Key", "second-client");
+        // When
+        MockHttpServletResponse actual = send(other, chain);
+        // Then
+        assertThat(calls).hasValue(2);
+        assertThat(actual.getHeader(IdempotencyFilter.IDEMPOTENT_REPLAYED)).isNull();
+    }
+
+    @Test
+    void overlongKeyIsRejected() throws Exception {
+        // When
+        MockHttpServletResponse response = send(
+                post("k".repeat(IdempotencyFilter.MAX_KEY_LENGTH + 1), "{}"), respondWith(200, ""));
+        // Then
+        assertThat(response.getStatus()).isEqualTo(400);
+        assertThat(calls).hasValue(0);
+    }
+
+    private FilterChain respondWith(int status, String body) {
+        return (request, response) -> {
+            calls.incrementAndGet();
+            // the controller reads the body before it answers
+            request.getInputStream().readAllBytes();
+            response.setContentType("application/json");
+            ((HttpServletResponse) response).setStatus(status);
+            response.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private static MockHttpServletRequest post(String key, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/customers/batch");
+        if(key != null){
+            request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY, key);
+        }
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private MockHttpServletResponse send(MockHttpServletRequest request, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        underTest.doFilter(request, response, chain);
+        return response;
+    }
+}
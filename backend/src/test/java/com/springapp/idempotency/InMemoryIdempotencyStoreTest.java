@@ -0,0 +1,68 @@
+package com.springapp.idempotency;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryIdempotencyStoreTest {
+    private static final IdempotentResponse RESPONSE =
+            new IdempotentResponse("POST /api/v1/customers 00", 200, false, null, new HttpHeaders(), null, new byte[0]);
+    private final InMemoryIdempotencyStore underTest = new InMemoryIdempotencyStore(100, Duration.ofMinutes(1));
+
+    @Test
+    void completedKeyIsReplayedAndNotClaimedAgain() throws Exception {
+        // Given
+        assertThat(underTest.claim("key")).isTrue();
+        // When
+        underTest.complete("key", RESPONSE);
+        // Then
+        assertThat(underTest.claim("key")).isFalse();
+        assertThat(underTest.await("key", Duration.ZERO)).contains(RESPONSE);
+    }
+
+    @Test
+    void releasedKeyCanBeClaimedAgain() throws Exception {
+        // Given
+        assertThat(underTest.claim("key")).isTrue();
+        // When
+        underTest.release("key");
+        // Then
+        assertThat(underTest.await("key", Duration.ZERO)).isEmpty();
+        assertThat(underTest.claim("key")).isTrue();
+    }
+
+    @Test
+    void duplicateWaitsForTheRequestInFlight() throws Exception {
+        // Given
+        assertThat(underTest.claim("key")).isTrue();
+        assertThat(underTest.claim("key")).isFalse();
+        CompletableFuture<Optional<IdempotentResponse>> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return underTest.await("key", Duration.ofSeconds(10));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        // When
+        underTest.complete("key", RESPONSE);
+        // Then
+        assertThat(waiting.get()).contains(RESPONSE);
+    }
+
+    @Test
+    void awaitTimesOutWhileTheKeyIsInFlight() {
+        // Given
+        underTest.claim("key");
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.await("key", Duration.ofMillis(10)))
+                .isInstanceOf(TimeoutException.class);
+    }
+}
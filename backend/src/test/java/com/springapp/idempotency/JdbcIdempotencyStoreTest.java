@@ -0,0 +1,121 @@
+package com.springapp.idempotency;
+
+import com.springapp.AbstractTestcontainers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JdbcIdempotencyStoreTest extends AbstractTestcontainers {
+    private JdbcIdempotencyStore underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new JdbcIdempotencyStore(
+                getJdbcTemplate(), Duration.ofMinutes(1), Duration.ofMinutes(1), Duration.ofMillis(10), Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.close();
+    }
+
+    @Test
+    void completedKeyIsReplayedAndNotClaimedAgain() throws Exception {
+        // Given
+        String key = UUID.randomUUID().toString();
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.LOCATION, "/api/v1/customers/registrations/1");
+        headers.add(HttpHeaders.VARY, "Accept");
+        headers.add(HttpHeaders.VARY, "Accept-Encoding");
+        IdempotentResponse response = new IdempotentResponse(
+                "POST /api/v1/customers/batch 00", 200, false, null, headers, "application/json",
+                "[]".getBytes(StandardCharsets.UTF_8));
+        assertThat(underTest.claim(key)).isTrue();
+        assertThat(underTest.claim(key)).isFalse();
+        // When
+        underTest.complete(key, response);
+        // Then
+        Optional<IdempotentResponse> actual = underTest.await(key, Duration.ZERO);
+        assertThat(actual).hasValueSatisfying(r -> {
+            assertThat(r.fingerprint()).isEqualTo(response.fingerprint());
+            assertThat(r.status()).isEqualTo(200);
+            assertThat(r.headers()).isEqualTo(headers);
+            assertThat(r.contentType()).isEqualTo("application/json");
+            assertThat(r.body()).isEqualTo(response.body());
+        });
+    }
+
+    @Test
+    void releasedKeyCanBeClaimedAgain() throws Exception {
+        // Given
+        String key = UUID.randomUUID().toString();
+        underTest.claim(key);
+        assertThatThrownBy(() -> underTest.await(key, Duration.ofMillis(30)))
+                .isInstanceOf(TimeoutException.class);
+        // When
+        underTest.release(key);
+        // Then
+        assertThat(underTest.await(key, Duration.ZERO)).isEmpty();
+        assertThat(underTest.claim(key)).isTrue();
+    }
+
+    @Test
+    void expiredKeyIsTakenOver() {
+        // Given
+        String key = UUID.randomUUID().toString();
+        try (JdbcIdempotencyStore expiring = new JdbcIdempotencyStore(
+                getJdbcTemplate(), Duration.ZERO, Duration.ofMinutes(1), Duration.ofMillis(10), Duration.ofMinutes(1))) {
+            assertThat(expiring.claim(key)).isTrue();
+            expiring.complete(key, new IdempotentResponse(
+                    "DELETE /api/v1/customers/1 00", 200, false, null, new HttpHeaders(), null, new byte[0]));
+            // When
+            // Then
+            assertThat(expiring.claim(key)).isTrue();
+        }
+    }
+
+    @Test
+    void renewedLeaseKeepsKeyHeld() throws Exception {
+        // Given
+        String key = UUID.randomUUID().toString();
+        try (JdbcIdempotencyStore holder = leasing(Duration.ofMillis(300))) {
+            assertThat(holder.claim(key)).isTrue();
+            // When
+            Thread.sleep(1000);
+            // Then
+            assertThat(underTest.claim(key)).isFalse();
+            assertThatThrownBy(() -> underTest.await(key, Duration.ofMillis(30)))
+                    .isInstanceOf(TimeoutException.class);
+        }
+    }
+
+    @Test
+    void keyOfDeadHolderIsTakenOverOnceItsLeaseLapses() throws Exception {
+        // Given
+        String key = UUID.randomUUID().toString();
+        JdbcIdempotencyStore holder = leasing(Duration.ofMillis(300));
+        assertThat(holder.claim(key)).isTrue();
+        // When
+        // the node stops renewing without releasing the key
+        holder.close();
+        Thread.sleep(600);
+        // Then
+        assertThat(underTest.await(key, Duration.ZERO)).isEmpty();
+        assertThat(underTest.claim(key)).isTrue();
+    }
+
+    private JdbcIdempotencyStore leasing(Duration lease) {
+        return new JdbcIdempotencyStore(
+                getJdbcTemplate(), Duration.ofMinutes(1), lease, Duration.ofMillis(10), Duration.ofMinutes(1));
+    }
+}
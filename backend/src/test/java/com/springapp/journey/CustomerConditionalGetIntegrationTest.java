@@ -0,0 +1,157 @@
+package com.springapp.journey;
+
+import com.springapp.customer.Customer;
+import com.springapp.customer.CustomerProtobufHttpMessageConverter;
+import com.springapp.customer.CustomerRegistrationRequest;
+import com.springapp.customer.CustomerUpdateRequest;
+import com.springapp.customer.Gender;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@SpringBootTest(
+        webEnvironment = RANDOM_PORT
+)
+public class CustomerConditionalGetIntegrationTest {
+    private static final String CUSTOMER_URI = "/api/v1/customers";
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void customerIsRevalidatedByItsVersion() {
+        // register a customer and fetch it with its tag
+        String email = "etag-" + UUID.randomUUID() + "@foobar.co";
+        register(email);
+        long id = webTestClient.get()
+                .uri(CUSTOMER_URI + "/search?email={email}", email)
+                .exchange()
+                .expectBodyList(new ParameterizedTypeReference<Customer>() {
+                })
+                .returnResult()
+                .getResponseBody()
+                .stream()
+                .filter(c -> c.getEmail().equals(email))
+                .map(Customer::getId)
+                .findFirst()
+                .orElseThrow();
+        String etag = webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", id)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(Customer.class)
+                .getResponseHeaders()
+                .getETag();
+        assertThat(etag).isEqualTo("\"%d-0\"".formatted(id));
+
+        // an unchanged customer answers 304 without a body
+        webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", id)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus()
+                .isNotModified()
+                .expectHeader()
+                .valueEquals(HttpHeaders.ETAG, etag)
+                .expectHeader()
+                .values(HttpHeaders.VARY, vary -> assertThat(vary).contains(HttpHeaders.ACCEPT))
+                .expectBody()
+                .isEmpty();
+
+        // the protobuf encoding has a tag of its own, so the JSON one does not match it
+        webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", id)
+                .accept(CustomerProtobufHttpMessageConverter.PROTOBUF)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .valueEquals(HttpHeaders.ETAG, "\"%d-0-pb\"".formatted(id))
+                .expectHeader()
+                .values(HttpHeaders.VARY, vary -> assertThat(vary).contains(HttpHeaders.ACCEPT));
+
+        // after an update the old tag no longer matches
+        webTestClient.put()
+                .uri(CUSTOMER_URI + "/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerUpdateRequest(null, null, 42, null)), CustomerUpdateRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+        webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", id)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .valueEquals(HttpHeaders.ETAG, "\"%d-1\"".formatted(id))
+                .expectBody(Customer.class)
+                .value(customer -> assertThat(customer.getAge()).isEqualTo(42));
+    }
+
+    @Test
+    void listIsRevalidatedByTheCollectionRevision() {
+        register("etag-" + UUID.randomUUID() + "@foobar.co");
+        String etag = webTestClient.get()
+                .uri(CUSTOMER_URI)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(Customer.class)
+                .getResponseHeaders()
+                .getETag();
+        assertThat(etag).isNotNull();
+
+        webTestClient.get()
+                .uri(CUSTOMER_URI)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus()
+                .isNotModified();
+
+        // a bad limit is rejected even when the tag matches
+        webTestClient.get()
+                .uri(CUSTOMER_URI + "?limit=0")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+
+        // any write to the collection changes the tag
+        register("etag-" + UUID.randomUUID() + "@foobar.co");
+        List<String> etags = webTestClient.get()
+                .uri(CUSTOMER_URI)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(Customer.class)
+                .getResponseHeaders()
+                .get(HttpHeaders.ETAG);
+        assertThat(etags).hasSize(1).doesNotContain(etag);
+    }
+
+    private void register(String email) {
+        webTestClient.post()
+                .uri(CUSTOMER_URI)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerRegistrationRequest("Etag Tester", email, 30, Gender.MALE)),
+                        CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+    }
+}
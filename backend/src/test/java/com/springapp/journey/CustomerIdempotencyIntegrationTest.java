@@ -0,0 +1,67 @@
+package com.springapp.journey;
+
+import com.springapp.customer.CustomerRegistrationRequest;
+import com.springapp.customer.Gender;
+import com.springapp.idempotency.IdempotencyFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@SpringBootTest(
+        webEnvironment = RANDOM_PORT
+)
+public class CustomerIdempotencyIntegrationTest {
+    private static final String CUSTOMER_URI = "/api/v1/customers";
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void retriedRegistrationIsReplayed() {
+        // a registration and its retry with the same key both succeed
+        String key = UUID.randomUUID().toString();
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(
+                "Idempotency Tester", "idempotent-" + UUID.randomUUID() + "@foobar.co", 30, Gender.MALE);
+        register(request, key)
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .doesNotExist(IdempotencyFilter.IDEMPOTENT_REPLAYED);
+        register(request, key)
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .valueEquals(IdempotencyFilter.IDEMPOTENT_REPLAYED, "true");
+
+        // without the key the same registration runs again and finds the email taken
+        webTestClient.post()
+                .uri(CUSTOMER_URI)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(request), CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus()
+                .isEqualTo(409);
+
+        // the key cannot be reused for another customer
+        CustomerRegistrationRequest other = new CustomerRegistrationRequest(
+                "Idempotency Tester", "idempotent-" + UUID.randomUUID() + "@foobar.co", 30, Gender.MALE);
+        register(other, key)
+                .expectStatus()
+                .isEqualTo(422);
+    }
+
+    private WebTestClient.ResponseSpec register(CustomerRegistrationRequest request, String key) {
+        return webTestClient.post()
+                .uri(CUSTOMER_URI)
+                .header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(request), CustomerRegistrationRequest.class)
+                .exchange();
+    }
+}
@@ -0,0 +1,76 @@
+package com.springapp.journey;
+
+import com.springapp.customer.CustomerRegistration;
+import com.springapp.customer.CustomerRegistrationRequest;
+import com.springapp.customer.Gender;
+import com.springapp.idempotency.IdempotencyFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@SpringBootTest(
+        webEnvironment = RANDOM_PORT,
+        properties = "customer.registration.async.enabled=true"
+)
+public class CustomerQueuedRegistrationIdempotencyIntegrationTest {
+    private static final String CUSTOMER_URI = "/api/v1/customers";
+    private static final String ORIGIN = "http://localhost:5173";
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void retriedQueuedRegistrationIsReplayedWithItsLocation() {
+        // the registration is queued and its outcome can be polled from the location
+        String key = UUID.randomUUID().toString();
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(
+                "Idempotency Tester", "queued-" + UUID.randomUUID() + "@foobar.co", 30, Gender.FEMALE);
+        String location = register(request, key)
+                .expectStatus()
+                .isAccepted()
+                .expectHeader()
+                .doesNotExist(IdempotencyFilter.IDEMPOTENT_REPLAYED)
+                .returnResult(CustomerRegistration.class)
+                .getResponseHeaders()
+                .getFirst(HttpHeaders.LOCATION);
+        assertThat(location).startsWith(CUSTOMER_URI + "/registrations/");
+
+        // the retry gets the same location back, with the CORS headers a browser needs to read it
+        register(request, key)
+                .expectStatus()
+                .isAccepted()
+                .expectHeader()
+                .valueEquals(IdempotencyFilter.IDEMPOTENT_REPLAYED, "true")
+                .expectHeader()
+                .valueEquals(HttpHeaders.LOCATION, location)
+                .expectHeader()
+                .valueEquals(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*")
+                .expectHeader()
+                .value(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, exposed -> assertThat(exposed)
+                        .contains(IdempotencyFilter.IDEMPOTENT_REPLAYED, HttpHeaders.LOCATION));
+
+        webTestClient.get()
+                .uri(location)
+                .exchange()
+                .expectStatus()
+                .isOk();
+    }
+
+    private WebTestClient.ResponseSpec register(CustomerRegistrationRequest request, String key) {
+        return webTestClient.post()
+                .uri(CUSTOMER_URI)
+                .header(IdempotencyFilter.IDEMPOTENCY_KEY, key)
+                .header(HttpHeaders.ORIGIN, ORIGIN)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(request), CustomerRegistrationRequest.class)
+                .exchange();
+    }
+}
@@ -0,0 +1,116 @@
+package com.springapp.journey;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.springapp.customer.Customer;
+import com.springapp.customer.CustomerProtobufHttpMessageConverter;
+import com.springapp.customer.Gender;
+import com.springapp.customer.proto.CustomerProtos;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@SpringBootTest(
+        webEnvironment = RANDOM_PORT
+)
+public class CustomerWireFormatIntegrationTest {
+    private static final String CUSTOMER_URI = "/api/v1/customers";
+    private static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+    private static final MediaType PROTOBUF = CustomerProtobufHttpMessageConverter.PROTOBUF;
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void customerIsRegisteredUpdatedAndReadInEveryFormat() throws Exception {
+        // register a customer with a protobuf body
+        String email = "wire-" + UUID.randomUUID() + "@foobar.co";
+        byte[] registration = CustomerProtos.CustomerRegistrationRequest.newBuilder()
+                .setName("Wire Tester")
+                .setEmail(email)
+                .setAge(30)
+                .setGender(CustomerProtos.Gender.MALE)
+                .build()
+                .toByteArray();
+        webTestClient.post()
+                .uri(CUSTOMER_URI)
+                .contentType(PROTOBUF)
+                .bodyValue(registration)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        // look the customer up by its email as protobuf
+        byte[] list = webTestClient.get()
+                .uri(CUSTOMER_URI + "/search?email={email}", email)
+                .accept(PROTOBUF)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .contentType(PROTOBUF)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+        CustomerProtos.Customer registered = CustomerProtos.CustomerList.parseFrom(list)
+                .getCustomersList()
+                .stream()
+                .filter(c -> c.getEmail().equals(email))
+                .findFirst()
+                .orElseThrow();
+        assertThat(registered.getGender()).isEqualTo(CustomerProtos.Gender.MALE);
+        long id = registered.getId();
+
+        // update only the age with a protobuf body
+        webTestClient.put()
+                .uri(CUSTOMER_URI + "/{id}", id)
+                .contentType(PROTOBUF)
+                .bodyValue(CustomerProtos.CustomerUpdateRequest.newBuilder().setAge(42).build().toByteArray())
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        // every format reads back the same customer
+        Customer expected = new Customer(id, "Wire Tester", email, 42, Gender.MALE);
+        Customer json = webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", id)
+                .exchange()
+                .expectHeader()
+                .contentType(MediaType.APPLICATION_JSON)
+                .expectBody(Customer.class)
+                .returnResult()
+                .getResponseBody();
+        assertThat(json).isEqualTo(expected);
+        assertThat(read(id, CBOR, new CBORMapper())).isEqualTo(expected);
+        assertThat(read(id, SMILE, new SmileMapper())).isEqualTo(expected);
+        CustomerProtos.Customer protobuf = CustomerProtos.Customer.parseFrom(get(id, PROTOBUF));
+        assertThat(protobuf.getAge()).isEqualTo(42);
+        assertThat(protobuf.getVersion()).isEqualTo(1L);
+    }
+
+    private Customer read(long id, MediaType mediaType, ObjectMapper mapper) throws Exception {
+        return mapper.readValue(get(id, mediaType), Customer.class);
+    }
+
+    private byte[] get(long id, MediaType mediaType) {
+        return webTestClient.get()
+                .uri(CUSTOMER_URI + "/{id}", id)
+                .accept(mediaType)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .contentType(mediaType)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+    }
+}
@@ -0,0 +1,10 @@
+package com.springapp.journey;
+
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs the customer journeys against the WebFlux and R2DBC stack.
+ */
+@ActiveProfiles("reactive")
+public class ReactiveCustomerIntegrationTest extends CustomerIntegrationTest {
+}
@@ -0,0 +1,72 @@
+package com.springapp.benchmark;
+
+import com.springapp.Main;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The application context, by default without the web layer, running against a throwaway
+ * embedded Postgres so benchmarks need nothing installed locally.
+ */
+final class BenchmarkApplication implements AutoCloseable {
+    private final EmbeddedPostgres postgres;
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkApplication(EmbeddedPostgres postgres, ConfigurableApplicationContext context) {
+        this.postgres = postgres;
+        this.context = context;
+    }
+
+    /**
+     * Starts a fresh database and context. {@code properties} are
+     * {@code key=value} pairs and override the defaults below.
+     */
+    static BenchmarkApplication start(String... properties) throws IOException {
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("spring.main.web-application-type", "none");
+        settings.put("spring.main.banner-mode", "off");
+        settings.put("spring.datasource.url", postgres.getJdbcUrl("postgres", "postgres"));
+        settings.put("spring.datasource.username", "postgres");
+        settings.put("spring.datasource.password", "");
+        settings.put("spring.r2dbc.url", "r2dbc:postgresql://localhost:%d/postgres".formatted(postgres.getPort()));
+        settings.put("spring.r2dbc.username", "postgres");
+        settings.put("spring.flyway.url", postgres.getJdbcUrl("postgres", "postgres"));
+        settings.put("spring.flyway.user", "postgres");
+        settings.put("spring.jpa.show-sql", "false");
+        settings.put("logging.level.root", "warn");
+        for (String property : properties) {
+            String[] keyValue = property.split("=", 2);
+            settings.put(keyValue[0], keyValue[1]);
+        }
+        // command line arguments, so they win over application.yml
+        String[] args = settings.entrySet().stream()
+                .map(setting -> "--" + setting.getKey() + "=" + setting.getValue())
+                .toArray(String[]::new);
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Main.class).run(args);
+        return new BenchmarkApplication(postgres, context);
+    }
+
+    String property(String key) {
+        return context.getEnvironment().getProperty(key);
+    }
+
+    <T> T bean(String name, Class<T> type) {
+        return context.getBean(name, type);
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        postgres.close();
+    }
+}
@@ -0,0 +1,63 @@
+package com.springapp.benchmark;
+
+import com.springapp.customer.Customer;
+import com.springapp.customer.CustomerDao;
+import com.springapp.customer.Gender;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts customers through {@link CustomerDao#insertCustomers} in bulks of
+ * {@code bulkSize}, reported as inserts per second. {@code jpa-pooled-unbatched}
+ * keeps the pooled sequence ids but turns Hibernate's JDBC batching off, so each
+ * row is its own round trip; {@code jpa-batched} runs with the application's
+ * batching settings, and {@code jdbc} is the hand-written batch for comparison.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerBulkInsertBenchmark {
+    private static final int BULK_SIZE = 1000;
+
+    @Param({"jpa-pooled-unbatched", "jpa-batched", "jdbc"})
+    public String mode;
+
+    private BenchmarkApplication application;
+    private CustomerDao customerDao;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        application = mode.equals("jpa-pooled-unbatched")
+                ? BenchmarkApplication.start(
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=1",
+                        "spring.jpa.properties.hibernate.order_inserts=false")
+                : BenchmarkApplication.start();
+        application.bean(JdbcTemplate.class).execute("TRUNCATE customer");
+        customerDao = application.bean(mode.startsWith("jpa") ? "jpa" : "jdbc", CustomerDao.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        application.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public List<Boolean> insertCustomers() {
+        List<Customer> customers = new ArrayList<>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            String key = "bulk-" + sequence++;
+            customers.add(new Customer("Customer " + key, key + "@benchmark.io", 16 + i % 80, Gender.FEMALE));
+        }
+        return customerDao.insertCustomers(customers);
+    }
+}
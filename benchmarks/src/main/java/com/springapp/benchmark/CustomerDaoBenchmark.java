@@ -0,0 +1,107 @@
+package com.springapp.benchmark;
+
+import com.springapp.customer.Customer;
+import com.springapp.customer.CustomerDao;
+import com.springapp.customer.Gender;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures every {@link CustomerDao} implementation against tables of several
+ * sizes. Run with {@code -prof gc} to see the allocation rate next to the
+ * throughput and sampled latency. Inserts grow the table during the trial, the
+ * other operations work on the seeded rows. {@code jpa-cached} is the JPA
+ * implementation with Hibernate's second-level cache turned on.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerDaoBenchmark {
+
+    @Param({"jdbc", "jpa", "jpa-cached", "list", "offheap"})
+    public String dao;
+
+    @Param({"1000", "10000", "100000"})
+    public int tableSize;
+
+    private BenchmarkApplication application;
+    private CustomerDao customerDao;
+    private long[] ids;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        application = dao.equals("jpa-cached")
+                ? BenchmarkApplication.start("customer.second-level-cache.enabled=true")
+                : BenchmarkApplication.start();
+        application.bean(JdbcTemplate.class).execute("TRUNCATE customer");
+        customerDao = application.bean(dao.startsWith("jpa") ? "jpa" : dao, CustomerDao.class);
+        List<Customer> customers = new ArrayList<>(tableSize);
+        for (int i = 0; i < tableSize; i++) {
+            customers.add(newCustomer("seed-" + i));
+        }
+        customerDao.insertCustomers(customers);
+        ids = customerDao.selectAllCustomers().stream()
+                .mapToLong(Customer::getId)
+                .toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        application.close();
+    }
+
+    @Benchmark
+    public List<Customer> selectAllCustomers() {
+        return customerDao.selectAllCustomers();
+    }
+
+    @Benchmark
+    public void streamAllCustomers(Blackhole blackhole) {
+        customerDao.streamAllCustomers(blackhole::consume);
+    }
+
+    @Benchmark
+    public Optional<Customer> selectCustomerById() {
+        return customerDao.selectCustomerById(randomId());
+    }
+
+    @Benchmark
+    public void insertCustomer(Blackhole blackhole) {
+        Customer customer = newCustomer("insert-" + sequence.incrementAndGet());
+        customerDao.insertCustomer(customer);
+        blackhole.consume(customer);
+    }
+
+    @Benchmark
+    public void updateCustomer() {
+        Customer update = new Customer();
+        update.setId(randomId());
+        update.setName("updated-" + sequence.incrementAndGet());
+        customerDao.updateCustomer(update);
+    }
+
+    private long randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private static Customer newCustomer(String key) {
+        return new Customer(
+                "Customer " + key,
+                key + "@benchmark.io",
+                ThreadLocalRandom.current().nextInt(16, 99),
+                Gender.FEMALE);
+    }
+}
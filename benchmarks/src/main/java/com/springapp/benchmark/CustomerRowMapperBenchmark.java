@@ -0,0 +1,56 @@
+package com.springapp.benchmark;
+
+import com.springapp.customer.Customer;
+import com.springapp.customer.CustomerRowMapper;
+import org.openjdk.jmh.annotations.*;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning one row into a {@link Customer}, isolated from the driver by
+ * reading from an in-memory {@link CachedRowSet}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CustomerRowMapperBenchmark {
+    private final CustomerRowMapper customerRowMapper = new CustomerRowMapper();
+    private CachedRowSet resultSet;
+
+    @Setup
+    public void setUp() throws SQLException {
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(6);
+        String[] columns = {"id", "name", "email", "age", "gender", "version"};
+        int[] types = {Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.INTEGER, Types.VARCHAR, Types.BIGINT};
+        for (int i = 0; i < columns.length; i++) {
+            metaData.setColumnName(i + 1, columns[i]);
+            metaData.setColumnType(i + 1, types[i]);
+        }
+        resultSet = RowSetProvider.newFactory().createCachedRowSet();
+        resultSet.setMetaData(metaData);
+        resultSet.moveToInsertRow();
+        resultSet.updateLong(1, 1L);
+        resultSet.updateString(2, "Jamila");
+        resultSet.updateString(3, "jamila@gmail.com");
+        resultSet.updateInt(4, 19);
+        resultSet.updateString(5, "FEMALE");
+        resultSet.updateLong(6, 0L);
+        resultSet.insertRow();
+        resultSet.moveToCurrentRow();
+        resultSet.first();
+    }
+
+    @Benchmark
+    public Customer mapRow() throws SQLException {
+        return customerRowMapper.mapRow(resultSet, 1);
+    }
+}
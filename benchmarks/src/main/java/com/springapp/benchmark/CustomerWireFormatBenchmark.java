@@ -0,0 +1,113 @@
+package com.springapp.benchmark;
+
+import com.springapp.customer.Customer;
+import com.springapp.customer.CustomerProtobufHttpMessageConverter;
+import com.springapp.customer.Gender;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes and decodes a page of customers in each wire format the API
+ * negotiates, through the same message converters the controllers use. The
+ * payload size of each format is printed once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CustomerWireFormatBenchmark {
+    private static final Type CUSTOMERS = new ParameterizedTypeReference<List<Customer>>() {
+    }.getType();
+
+    @Param({"json", "smile", "cbor", "protobuf"})
+    public String format;
+
+    @Param("10000")
+    public int customers;
+
+    private GenericHttpMessageConverter<Object> converter;
+    private MediaType mediaType;
+    private List<Customer> page;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        switch (format) {
+            case "json" -> converter = new MappingJackson2HttpMessageConverter();
+            case "smile" -> converter = new MappingJackson2SmileHttpMessageConverter();
+            case "cbor" -> converter = new MappingJackson2CborHttpMessageConverter();
+            case "protobuf" -> converter = new CustomerProtobufHttpMessageConverter();
+            default -> throw new IllegalArgumentException("unknown format " + format);
+        }
+        mediaType = converter.getSupportedMediaTypes().get(0);
+        page = new ArrayList<>(customers);
+        for (int i = 1; i <= customers; i++) {
+            Customer customer = new Customer((long) i, "Customer " + i, "customer-" + i + "@example.com",
+                    18 + i % 80, i % 2 == 0 ? Gender.MALE : Gender.FEMALE);
+            customer.setVersion((long) i % 3);
+            page.add(customer);
+        }
+        payload = encode().toByteArray();
+        System.out.printf("%n%s: %d customers in %,d bytes (%.1f bytes per customer)%n",
+                format, customers, payload.length, (double) payload.length / customers);
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream encode() throws IOException {
+        BufferedOutputMessage output = new BufferedOutputMessage();
+        converter.write(page, CUSTOMERS, mediaType, output);
+        return output.body;
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return converter.read(CUSTOMERS, null, new BufferedInputMessage(payload));
+    }
+
+    private static final class BufferedOutputMessage implements HttpOutputMessage {
+        private final HttpHeaders headers = new HttpHeaders();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(1 << 20);
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+
+    private record BufferedInputMessage(byte[] payload) implements HttpInputMessage {
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(payload);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return new HttpHeaders();
+        }
+    }
+}
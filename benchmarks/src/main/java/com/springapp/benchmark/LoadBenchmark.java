@@ -0,0 +1,147 @@
+package com.springapp.benchmark;
+
+import com.springapp.customer.Customer;
+import com.springapp.customer.CustomerDao;
+import com.springapp.customer.Gender;
+import com.springapp.customer.ReactiveCustomerDao;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop HTTP load test of {@code GET /api/v1/customers/{id}} against the
+ * servlet stack on platform threads, the servlet stack on virtual threads and
+ * the reactive stack. Every client sends its next request as soon as the
+ * previous one answers, so throughput and latency show where requests queue:
+ * for Tomcat's worker pool with platform threads, for the connection permits
+ * with virtual threads, for the R2DBC pool on the reactive stack. The peak
+ * number of live threads hints at what each open connection costs.
+ *
+ * <p>Settings are system properties: {@code clients} (1000), {@code duration}
+ * (30s), {@code warmup} (10s), {@code customers} (10000), {@code poolSize}
+ * (10) and {@code modes} (platform,virtual,reactive).
+ */
+public class LoadBenchmark {
+    private static final int CLIENTS = Integer.getInteger("clients", 1000);
+    private static final Duration DURATION = Duration.parse("PT" + System.getProperty("duration", "30s"));
+    private static final Duration WARMUP = Duration.parse("PT" + System.getProperty("warmup", "10s"));
+    private static final int CUSTOMERS = Integer.getInteger("customers", 10_000);
+    private static final int POOL_SIZE = Integer.getInteger("poolSize", 10);
+    private static final String[] MODES = System.getProperty("modes", "platform,virtual,reactive").split(",");
+
+    public static void main(String[] args) throws Exception {
+        List<String> results = new ArrayList<>();
+        for (String mode : MODES) {
+            results.add(run(mode));
+        }
+        System.out.printf("%n%-9s %7s %10s %9s %9s %9s %8s %8s %14s%n",
+                "mode", "clients", "req/s", "p50 ms", "p99 ms", "max ms", "errors", "threads", "permit p99 ms");
+        results.forEach(System.out::println);
+    }
+
+    private static String run(String mode) throws Exception {
+        try (BenchmarkApplication application = BenchmarkApplication.start(
+                "server.port=0",
+                "spring.main.web-application-type=" + (mode.equals("reactive") ? "reactive" : "servlet"),
+                "spring.profiles.active=" + (mode.equals("reactive") ? "reactive" : "default"),
+                "threads.virtual.enabled=" + mode.equals("virtual"),
+                "spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                "spring.r2dbc.pool.max-size=" + POOL_SIZE);
+             HttpClient client = HttpClient.newBuilder()
+                     .executor(Executors.newVirtualThreadPerTaskExecutor())
+                     .build()) {
+            long[] ids = seed(application, mode.equals("reactive"));
+            String baseUrl = "http://localhost:" + application.property("local.server.port") + "/api/v1/customers/";
+
+            System.out.printf("%s: warming up for %s%n", mode, WARMUP);
+            drive(client, baseUrl, ids, WARMUP);
+            System.out.printf("%s: measuring %d clients for %s%n", mode, CLIENTS, DURATION);
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            threads.resetPeakThreadCount();
+            Result result = drive(client, baseUrl, ids, DURATION);
+
+            Timer permitWait = application.bean(MeterRegistry.class)
+                    .find("datasource.connection.permit.wait")
+                    .tag("outcome", "acquired")
+                    .timer();
+            String permitP99 = permitWait == null ? "-" : "%.2f".formatted(
+                    permitWait.takeSnapshot().percentileValues()[1].value(TimeUnit.MILLISECONDS));
+            Histogram latency = result.latency();
+            return "%-9s %7d %10.0f %9.2f %9.2f %9.2f %8d %8d %14s".formatted(
+                    mode,
+                    CLIENTS,
+                    latency.getTotalCount() / (double) DURATION.toSeconds(),
+                    latency.getValueAtPercentile(50) / 1e6,
+                    latency.getValueAtPercentile(99) / 1e6,
+                    latency.getMaxValue() / 1e6,
+                    result.errors().sum(),
+                    threads.getPeakThreadCount(),
+                    permitP99);
+        }
+    }
+
+    private static long[] seed(BenchmarkApplication application, boolean reactive) {
+        List<Customer> customers = new ArrayList<>(CUSTOMERS);
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customers.add(new Customer("Customer " + i, "load-" + i + "@benchmark.io", 30, Gender.MALE));
+        }
+        if (reactive) {
+            ReactiveCustomerDao customerDao = application.bean(ReactiveCustomerDao.class);
+            customerDao.insertCustomers(customers).block();
+            return customerDao.selectAllCustomers().map(Customer::getId).collectList().block()
+                    .stream().mapToLong(Long::longValue).toArray();
+        }
+        CustomerDao customerDao = application.bean("jdbc", CustomerDao.class);
+        customerDao.insertCustomers(customers);
+        return customerDao.selectAllCustomers().stream().mapToLong(Customer::getId).toArray();
+    }
+
+    private static Result drive(HttpClient client, String baseUrl, long[] ids, Duration duration)
+            throws InterruptedException {
+        Result result = new Result(new ConcurrentHistogram(3), new LongAdder());
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CLIENTS; c++) {
+                clients.execute(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long id = ids[ThreadLocalRandom.current().nextInt(ids.length)];
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + id)).build();
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                result.errors().increment();
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        } catch (Exception e) {
+                            result.errors().increment();
+                        }
+                        result.latency().recordValue(System.nanoTime() - start);
+                    }
+                });
+            }
+        }
+        return result;
+    }
+
+    private record Result(Histogram latency, LongAdder errors) {
+    }
+}
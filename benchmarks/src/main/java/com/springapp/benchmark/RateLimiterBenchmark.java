@@ -0,0 +1,58 @@
+package com.springapp.benchmark;
+
+import com.springapp.config.TokenBucketRateLimiter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost the rate limiter adds to a request: one {@link TokenBucketRateLimiter#tryAcquire}
+ * for a client picked round-robin from {@code clients}. With more clients than the
+ * default bound of 100,000 buckets are evicted and recreated all the time, which is
+ * the worst case for the cache. {@code allowed} never runs out of tokens,
+ * {@code rejected} is always out of them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RateLimiterBenchmark {
+    private static final long MAXIMUM_CLIENTS = 100_000;
+
+    @Param({"1", "10000", "1000000"})
+    public int clients;
+
+    private TokenBucketRateLimiter unlimited;
+    private TokenBucketRateLimiter exhausted;
+    private String[] keys;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        unlimited = new TokenBucketRateLimiter(1_000_000_000L, 1e9, MAXIMUM_CLIENTS);
+        exhausted = new TokenBucketRateLimiter(1, 1e-3, MAXIMUM_CLIENTS);
+        keys = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            keys[i] = "ip:10.%d.%d.%d".formatted(i >>> 16 & 0xff, i >>> 8 & 0xff, i & 0xff);
+            exhausted.tryAcquire(keys[i]);
+        }
+    }
+
+    @Benchmark
+    public long allowed() {
+        return unlimited.tryAcquire(nextKey());
+    }
+
+    @Benchmark
+    public long rejected() {
+        return exhausted.tryAcquire(nextKey());
+    }
+
+    private String nextKey() {
+        String key = keys[next];
+        next = next + 1 == keys.length ? 0 : next + 1;
+        return key;
+    }
+}
@@ -1,35 +1,52 @@
-
 import { getCustomers } from "./_services/client.js";
 import SidebarWithHeader from "./_shared/SidebarWithHeader.jsx";
-import { Spinner, Text, Wrap, WrapItem } from '@chakra-ui/react'
+import { Button, Center, Input, Spinner, Text, Wrap, WrapItem } from '@chakra-ui/react'
 import { useEffect, useState } from "react";
 import CardWithImage from "./components/CardWithImage.jsx"
 import DrawerForm from "./components/DrawerForm.jsx";
 import { errorNotification } from "./_services/notification.js";
 function App() {
 	const [customers, setCustomers] = useState([])
+	const [nextCursor, setNextCursor] = useState(undefined)
+	const [name, setName] = useState("")
 	const [loading, setLoading] = useState(false)
+	const [loadingMore, setLoadingMore] = useState(false)
 	const [error, setError] = useState("");
+	const onError = err => {
+		setError(err.response.data.message)
+		errorNotification(
+			err.code,
+			err.response.data.message
+		)
+	}
+	// starts over from the first page, after a search or a change
 	const fetchCustomers = () => {
 		setLoading(true)
-		getCustomers().then(res => {
+		setError("")
+		getCustomers({ name }).then(res => {
 			setCustomers(res.data)
-		}).catch(err => {
-			setError(err.response.data.message)
-			errorNotification(
-				err.code,
-				err.response.data.message
-			)
-		}).finally(() => {
+			setNextCursor(res.nextCursor)
+		}).catch(onError).finally(() => {
 			setLoading(false)
 		})
 	}
+	const fetchMoreCustomers = () => {
+		setLoadingMore(true)
+		getCustomers({ name, after: nextCursor }).then(res => {
+			setCustomers(loaded => [...loaded, ...res.data])
+			setNextCursor(res.nextCursor)
+		}).catch(onError).finally(() => {
+			setLoadingMore(false)
+		})
+	}
 	useEffect(() => {
-		fetchCustomers();
-	}, [])
-	if (loading) {
-		return (
-			<SidebarWithHeader >
+		// waits for a pause in typing before searching
+		const timeout = setTimeout(fetchCustomers, 300)
+		return () => clearTimeout(timeout)
+	}, [name])
+	const renderCustomers = () => {
+		if (loading) {
+			return (
 				<Spinner
 					thickness='4px'
 					speed='0.65s'
@@ -37,39 +54,46 @@ function App() {
 					color='blue.500'
 					size='xl'
 				/>
-			</SidebarWithHeader>
-		)
-	}
-	if (customers.length <= 0) {
-		return (
-			<SidebarWithHeader >
-				<DrawerForm fetchCustomers={fetchCustomers} />
-				<Text mt={5}>No Customers available</Text>
-			</SidebarWithHeader>
-		)
-	}
-	if (error) {
+			)
+		}
+		if (error) {
+			return <Text mt={5}>Ooops there is an error !</Text>
+		}
+		if (customers.length <= 0) {
+			return <Text mt={5}>No Customers available</Text>
+		}
 		return (
-			<SidebarWithHeader >
-				<DrawerForm fetchCustomers={fetchCustomers} />
-				<Text mt={5}>Ooops there is an error !</Text>
-			</SidebarWithHeader>
-		)
-	}
-	return (
-		<>
-			<SidebarWithHeader >
-				<DrawerForm fetchCustomers={fetchCustomers} />
+			<>
 				<Wrap justify='center' spacing="30px">
 					{customers.map((customer, index) => (
-						<WrapItem key={index}>
+						<WrapItem key={customer.id}>
 							<CardWithImage fetchCustomers={fetchCustomers} imageNumber={index} {...customer} />
 						</WrapItem>
 					))}
 				</Wrap>
-			</SidebarWithHeader>
-		</>
-
+				{nextCursor && (
+					<Center mt={8}>
+						<Button isLoading={loadingMore} onClick={fetchMoreCustomers}>
+							Load more
+						</Button>
+					</Center>
+				)}
+			</>
+		)
+	}
+	return (
+		<SidebarWithHeader >
+			<DrawerForm fetchCustomers={fetchCustomers} />
+			<Input
+				mt={5}
+				mb={5}
+				maxW='sm'
+				placeholder='Search by name'
+				value={name}
+				onChange={e => setName(e.target.value)}
+			/>
+			{renderCustomers()}
+		</SidebarWithHeader>
 	)
 }
 
@@ -1,9 +1,18 @@
 import axios from "axios";
 
-export const getCustomers = async ()=>{
+const PAGE_SIZE = 100
+
+export const getCustomers = async ({ after, name } = {})=>{
 	// eslint-disable-next-line no-useless-catch
 	try{
-		return await axios.get(`${import.meta.env.VITE_API_BASE_URL}/api/v1/customers`)
+		// one page at a time, the next one is asked for with the cursor this one names;
+		// a name filters on the server rather than in the browser
+		const path = name ? "/api/v1/customers/search" : "/api/v1/customers"
+		const res = await axios.get(
+			`${import.meta.env.VITE_API_BASE_URL}${path}`,
+			{ params: { after, name: name || undefined, limit: PAGE_SIZE } }
+		)
+		return { data: res.data, nextCursor: res.headers["x-next-cursor"] }
 	}catch(e){
 		throw e
 	}